@@ -1,22 +1,22 @@
+// Swap the client, e.g. for DynamoDB Local or an in-memory stub in benchmarks.
+// getDataForKeys does not use it, point setMultiKeyQueryClient at the same endpoint too
+public void setDynamoDbClient(DynamoDbClient dynamoDbClient) {
+    this.dynamoDbClient = dynamoDbClient;
+}
+
+private volatile boolean queryLogging = true;
+
+// Per-page "Fetched ..." console output - switch it off for bulk reads and benchmarks
+public void setQueryLogging(boolean enabled) {
+    this.queryLogging = enabled;
+}
+
 public List<Map<String, AttributeValue>> getDataFromTable(String hkPrimaryKey, String tableName) {
     List<Map<String, AttributeValue>> allItems = new ArrayList<>();
     Map<String, AttributeValue> lastEvaluatedKey = null;
     
     do {
-        Map<String, AttributeValue> expressionAttributeValue = new HashMap<>();
-        expressionAttributeValue.put(":partitionKey", AttributeValue.builder().s(hkPrimaryKey).build());
-        
-        QueryRequest.Builder requestBuilder = QueryRequest.builder()
-            .tableName(tableName)
-            .keyConditionExpression("HK = :partitionKey")
-            .expressionAttributeValues(expressionAttributeValue);
-        
-        // Add pagination token if exists
-        if (lastEvaluatedKey != null) {
-            requestBuilder.exclusiveStartKey(lastEvaluatedKey);
-        }
-        
-        QueryResponse response = dynamoDbClient.query(requestBuilder.build());
+        QueryResponse response = dynamoDbClient.query(buildPartitionQuery(hkPrimaryKey, tableName, lastEvaluatedKey));
         
         // Add items to result list
         allItems.addAll(response.items());
@@ -24,10 +24,96 @@ public List<Map<String, AttributeValue>> getDataFromTable(String hkPrimaryKey, S
         // Get pagination token for next batch
         lastEvaluatedKey = response.lastEvaluatedKey();
         
-        System.out.println("Fetched " + response.count() + " items (Total so far: " + allItems.size() + ")");
+        if (queryLogging) {
+            System.out.println("Fetched " + response.count() + " items (Total so far: " + allItems.size() + ")");
+        }
         
     } while (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty());
     
-    System.out.println("✓ Total items retrieved: " + allItems.size());
+    if (queryLogging) {
+        System.out.println("✓ Total items retrieved: " + allItems.size());
+    }
     return allItems;
 }
+
+// Build the partition key query, with pagination token if there is one
+private QueryRequest buildPartitionQuery(String hkPrimaryKey, String tableName, Map<String, AttributeValue> lastEvaluatedKey) {
+    Map<String, AttributeValue> expressionAttributeValue = new HashMap<>();
+    expressionAttributeValue.put(":partitionKey", AttributeValue.builder().s(hkPrimaryKey).build());
+    
+    QueryRequest.Builder requestBuilder = QueryRequest.builder()
+        .tableName(tableName)
+        .keyConditionExpression("HK = :partitionKey")
+        .expressionAttributeValues(expressionAttributeValue);
+    
+    if (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty()) {
+        requestBuilder.exclusiveStartKey(lastEvaluatedKey);
+    }
+    
+    return requestBuilder.build();
+}
+
+/**
+ * Lazy variant of getDataFromTable - pages are only fetched when the stream
+ * needs more items, so only one page is held in memory at a time.
+ * The stream must be consumed on a single thread.
+ */
+public Stream<Map<String, AttributeValue>> streamDataFromTable(String hkPrimaryKey, String tableName) {
+    Iterator<Map<String, AttributeValue>> items = new QueryItemIterator(hkPrimaryKey, tableName);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(items, Spliterator.ORDERED | Spliterator.NONNULL), false);
+}
+
+// Stream a whole partition straight into a CSV file
+public long exportPartitionToCSV(String hkPrimaryKey, String tableName, String... filePath) throws IOException {
+    try (CsvExportSession session = openCsvExport(filePath)) {
+        Iterator<Map<String, AttributeValue>> items = new QueryItemIterator(hkPrimaryKey, tableName);
+        while (items.hasNext()) {
+            session.write(items.next());
+        }
+        return session.getRowCount();
+    }
+}
+
+/**
+ * Walks a partition item by item, issuing the next Query only when the
+ * current page is used up.
+ */
+private class QueryItemIterator implements Iterator<Map<String, AttributeValue>> {
+    private final String hkPrimaryKey;
+    private final String tableName;
+    private Iterator<Map<String, AttributeValue>> page = Collections.emptyIterator();
+    private Map<String, AttributeValue> lastEvaluatedKey;
+    private boolean lastPageFetched;
+    private long total;
+    
+    QueryItemIterator(String hkPrimaryKey, String tableName) {
+        this.hkPrimaryKey = hkPrimaryKey;
+        this.tableName = tableName;
+    }
+    
+    @Override
+    public boolean hasNext() {
+        // Loop because a page can come back empty while more pages remain
+        while (!page.hasNext() && !lastPageFetched) {
+            QueryResponse response = dynamoDbClient.query(buildPartitionQuery(hkPrimaryKey, tableName, lastEvaluatedKey));
+            page = response.items().iterator();
+            total += response.count();
+            
+            lastEvaluatedKey = response.lastEvaluatedKey();
+            lastPageFetched = lastEvaluatedKey == null || lastEvaluatedKey.isEmpty();
+            
+            if (queryLogging) {
+                System.out.println("Fetched " + response.count() + " items (Total so far: " + total + ")");
+            }
+        }
+        return page.hasNext();
+    }
+    
+    @Override
+    public Map<String, AttributeValue> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+}
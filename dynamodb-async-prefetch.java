@@ -0,0 +1,138 @@
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import java.io.*;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+private static final Object END_OF_PAGES = new Object();
+
+// Created on first use unless one was set, like dynamoDbClient it can be swapped for DynamoDB Local or a stub
+private volatile DynamoDbAsyncClient dynamoDbAsyncClient;
+
+public void setDynamoDbAsyncClient(DynamoDbAsyncClient dynamoDbAsyncClient) {
+    this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+}
+
+private DynamoDbAsyncClient asyncClient() {
+    DynamoDbAsyncClient client = dynamoDbAsyncClient;
+    if (client == null) {
+        synchronized (this) {
+            if (dynamoDbAsyncClient == null) {
+                dynamoDbAsyncClient = DynamoDbAsyncClient.create();
+            }
+            client = dynamoDbAsyncClient;
+        }
+    }
+    return client;
+}
+
+// Async client for DynamoDB Local (e.g. http://localhost:8000) - pass it to setDynamoDbAsyncClient in tests
+public static DynamoDbAsyncClient localDynamoDbAsyncClient(String endpoint) {
+    return DynamoDbAsyncClient.builder()
+        .endpointOverride(URI.create(endpoint))
+        .region(Region.US_EAST_1)
+        .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("local", "local")))
+        .build();
+}
+
+/**
+ * Async variant of getDataFromTable built on the DynamoDbAsyncClient.
+ * Up to prefetchDepth pages are requested ahead of the consumer, so page k+1
+ * is already on the wire while page k is being processed. The SDK publisher
+ * only fetches more when a page has been handed back, which keeps memory
+ * bounded to prefetchDepth pages. pageConsumer runs on the calling thread.
+ */
+public long getDataFromTableAsync(String hkPrimaryKey, String tableName, int prefetchDepth,
+                                  Consumer<List<Map<String, AttributeValue>>> pageConsumer) {
+    if (prefetchDepth < 1) {
+        throw new IllegalArgumentException("prefetchDepth must be at least 1");
+    }
+    
+    // Demand never exceeds prefetchDepth, +1 leaves room for the completion/error signal
+    BlockingQueue<Object> pages = new ArrayBlockingQueue<>(prefetchDepth + 1);
+    CompletableFuture<Subscription> subscription = new CompletableFuture<>();
+    
+    asyncClient().queryPaginator(buildPartitionQuery(hkPrimaryKey, tableName, null))
+        .subscribe(new Subscriber<QueryResponse>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription.complete(s);
+                s.request(prefetchDepth);
+            }
+            
+            @Override
+            public void onNext(QueryResponse response) {
+                pages.offer(response);
+            }
+            
+            @Override
+            public void onError(Throwable t) {
+                pages.offer(t);
+            }
+            
+            @Override
+            public void onComplete() {
+                pages.offer(END_OF_PAGES);
+            }
+        });
+    
+    long total = 0;
+    try {
+        while (true) {
+            Object next = pages.take();
+            if (next == END_OF_PAGES) {
+                break;
+            }
+            if (next instanceof Throwable) {
+                throw new RuntimeException("Async query on " + tableName + " failed: " + ((Throwable) next).getMessage(), (Throwable) next);
+            }
+            
+            QueryResponse response = (QueryResponse) next;
+            pageConsumer.accept(response.items());
+            total += response.count();
+            
+            if (queryLogging) {
+                System.out.println("Fetched " + response.count() + " items (Total so far: " + total + ")");
+            }
+            
+            // Page handed back - let the publisher fetch one more
+            subscription.join().request(1);
+        }
+    } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        subscription.join().cancel();
+        throw new RuntimeException("Async query on " + tableName + " interrupted", e);
+    } catch (RuntimeException e) {
+        subscription.thenAccept(Subscription::cancel);
+        throw e;
+    }
+    
+    if (queryLogging) {
+        System.out.println("✓ Total items retrieved: " + total);
+    }
+    return total;
+}
+
+// Export a partition to CSV while the next pages are being fetched
+public long exportPartitionToCSVAsync(String hkPrimaryKey, String tableName, int prefetchDepth, String... filePath) throws IOException {
+    try (CsvExportSession session = openCsvExport(filePath)) {
+        getDataFromTableAsync(hkPrimaryKey, tableName, prefetchDepth, page -> {
+            try {
+                for (Map<String, AttributeValue> item : page) {
+                    session.write(item);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return session.getRowCount();
+    }
+}
@@ -0,0 +1,230 @@
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the DynamoDB read-and-export path of DynamoDBHelper.
+ *
+ * Dependencies (test scope):
+ *   org.openjdk.jmh:jmh-core
+ *   org.openjdk.jmh:jmh-generator-annprocess
+ *
+ * Run with the GC profiler to get the allocation rate next to ops/s:
+ *   java -jar target/benchmarks.jar DynamoExportBenchmark -prof gc
+ *
+ * Items come from synthetic generators (wide, deep, sparse, set-heavy) and
+ * pagination runs against PagedTableStub, an in-memory DynamoDbClient,
+ * so no network or DynamoDB Local is needed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamoExportBenchmark {
+    
+    @Param({"WIDE", "DEEP", "SPARSE", "SET_HEAVY"})
+    public ItemShape shape;
+    
+    @Param({"100"})
+    public int pageSize;
+    
+    private static final int ITEM_COUNT = 2000;
+    
+    private List<Map<String, AttributeValue>> items;
+    private DynamoDBHelper helper;
+    private Path tempDir;
+    private DynamoDBHelper.ItemExportFormat csvSession;
+    private String legacyCsvFile;
+    private DynamoDBHelper.DynamoJsonEncoder encoder;
+    private int cursor;
+    
+    public enum ItemShape { WIDE, DEEP, SPARSE, SET_HEAVY }
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        items = SyntheticItems.generate(shape, ITEM_COUNT, 42L);
+        helper = new DynamoDBHelper();
+        helper.setDynamoDbClient(new PagedTableStub(items, pageSize));
+        // Per-page console output would dominate the paginated benchmarks
+        helper.setQueryLogging(false);
+        tempDir = Files.createTempDirectory("dynamo-bench");
+        encoder = new DynamoDBHelper.DynamoJsonEncoder();
+    }
+    
+    @Setup(Level.Iteration)
+    public void openSession() throws IOException {
+        csvSession = helper.openCsvExport(tempDir.resolve("bench-" + System.nanoTime() + ".csv").toString());
+        legacyCsvFile = tempDir.resolve("legacy-" + System.nanoTime() + ".csv").toString();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void closeSession() throws IOException {
+        csvSession.close();
+        Files.deleteIfExists(Paths.get(csvSession.getFile()));
+        Files.deleteIfExists(Paths.get(legacyCsvFile));
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(tempDir);
+    }
+    
+    private Map<String, AttributeValue> nextItem() {
+        Map<String, AttributeValue> item = items.get(cursor);
+        cursor = (cursor + 1) % items.size();
+        return item;
+    }
+    
+    @Benchmark
+    public void attributeValueToString(Blackhole bh) {
+        for (AttributeValue av : nextItem().values()) {
+            bh.consume(helper.attributeValueToString(av));
+        }
+    }
+    
+    // Legacy baseline - opens, re-reads the header and closes the file for every row
+    @Benchmark
+    public void addToCSVWriteRow() throws IOException {
+        helper.addToCSV(nextItem(), legacyCsvFile);
+    }
+    
+    @Benchmark
+    public void csvSessionWriteRow() throws IOException {
+        csvSession.write(nextItem());
+    }
+    
+    @Benchmark
+    public int ndjsonEncodeItem() {
+        encoder.reset();
+        encoder.writeItem(nextItem());
+        return encoder.size();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ITEM_COUNT)
+    public List<Map<String, AttributeValue>> getDataFromTablePaginated() {
+        return helper.getDataFromTable("HK#bench", "BenchTable");
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ITEM_COUNT)
+    public long streamDataFromTablePaginated(Blackhole bh) {
+        return helper.streamDataFromTable("HK#bench", "BenchTable").peek(bh::consume).count();
+    }
+}
+
+/**
+ * Deterministic item generators for the benchmark shapes.
+ */
+class SyntheticItems {
+    
+    static List<Map<String, AttributeValue>> generate(DynamoExportBenchmark.ItemShape shape, int count, long seed) {
+        Random random = new Random(seed);
+        List<Map<String, AttributeValue>> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, AttributeValue> item = new LinkedHashMap<>();
+            item.put("HK", AttributeValue.builder().s("HK#bench").build());
+            item.put("SK", AttributeValue.builder().s("ITEM#" + i).build());
+            switch (shape) {
+                case WIDE:
+                    for (int c = 0; c < 200; c++) {
+                        item.put("attr" + c, c % 2 == 0
+                            ? AttributeValue.builder().s(randomText(random, 24)).build()
+                            : AttributeValue.builder().n(Integer.toString(random.nextInt(1_000_000))).build());
+                    }
+                    break;
+                case DEEP:
+                    item.put("payload", nested(random, 8));
+                    break;
+                case SPARSE:
+                    // ~10 attributes out of a pool of 500 - exercises header drift
+                    for (int c = 0; c < 10; c++) {
+                        item.put("sparse" + random.nextInt(500), AttributeValue.builder().s(randomText(random, 12)).build());
+                    }
+                    break;
+                case SET_HEAVY:
+                    for (int c = 0; c < 10; c++) {
+                        List<String> ss = new ArrayList<>();
+                        List<String> ns = new ArrayList<>();
+                        for (int e = 0; e < 50; e++) {
+                            ss.add(randomText(random, 8) + e);
+                            ns.add(Integer.toString(random.nextInt()));
+                        }
+                        item.put("tags" + c, AttributeValue.builder().ss(ss).build());
+                        item.put("scores" + c, AttributeValue.builder().ns(ns).build());
+                    }
+                    break;
+            }
+            items.add(item);
+        }
+        return items;
+    }
+    
+    private static AttributeValue nested(Random random, int depth) {
+        if (depth == 0) {
+            return AttributeValue.builder().s(randomText(random, 16)).build();
+        }
+        Map<String, AttributeValue> m = new LinkedHashMap<>();
+        m.put("name", AttributeValue.builder().s(randomText(random, 10)).build());
+        m.put("count", AttributeValue.builder().n(Integer.toString(random.nextInt(100))).build());
+        m.put("child", nested(random, depth - 1));
+        m.put("list", AttributeValue.builder().l(
+            AttributeValue.builder().bool(random.nextBoolean()).build(),
+            AttributeValue.builder().n(Double.toString(random.nextDouble())).build()).build());
+        return AttributeValue.builder().m(m).build();
+    }
+    
+    private static String randomText(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
+
+/**
+ * In-memory stand-in for DynamoDB - serves Query pages out of a list,
+ * using the item index as LastEvaluatedKey.
+ */
+class PagedTableStub implements DynamoDbClient {
+    private final List<Map<String, AttributeValue>> items;
+    private final int pageSize;
+    
+    PagedTableStub(List<Map<String, AttributeValue>> items, int pageSize) {
+        this.items = items;
+        this.pageSize = pageSize;
+    }
+    
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        int from = request.hasExclusiveStartKey() ? Integer.parseInt(request.exclusiveStartKey().get("idx").n()) : 0;
+        int to = Math.min(from + pageSize, items.size());
+        
+        QueryResponse.Builder response = QueryResponse.builder()
+            .items(items.subList(from, to))
+            .count(to - from);
+        if (to < items.size()) {
+            response.lastEvaluatedKey(Collections.singletonMap("idx", AttributeValue.builder().n(Integer.toString(to)).build()));
+        }
+        return response.build();
+    }
+    
+    @Override
+    public String serviceName() {
+        return "dynamodb";
+    }
+    
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,939 @@
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public enum ExportFormat {
+    CSV,            // CsvExportSession - one header, flattened values
+    CSV_DEFERRED,   // DeferredCsvExportSession - header written at close
+    NDJSON,         // one DynamoDB JSON item per line, types preserved
+    NDJSON_GZIP,
+    COLUMNAR,       // blocked binary columns, see ColumnarExportWriter
+    COLUMNAR_GZIP
+}
+
+/**
+ * Common lifecycle for every export format - open once, write items, close.
+ */
+public interface ItemExportFormat extends Closeable {
+    void write(Map<String, AttributeValue> item) throws IOException;
+    
+    void flush() throws IOException;
+    
+    long getRowCount();
+    
+    String getFile();
+}
+
+// Open an exporter for the given format - file defaults to the report folder like addToCSV
+public ItemExportFormat openExport(ExportFormat format, String... filePath) throws IOException {
+    String base = Constants.reportFolder + "DBEntries-" + Constants.TIMESTAMP;
+    switch (format) {
+        case CSV:
+            return openCsvExport(filePath);
+        case CSV_DEFERRED:
+            return openDeferredCsvExport(filePath);
+        case NDJSON:
+            return new NdjsonExportWriter(filePath.length > 0 ? filePath[0] : base + ".ndjson", false);
+        case NDJSON_GZIP:
+            return new NdjsonExportWriter(filePath.length > 0 ? filePath[0] : base + ".ndjson.gz", true);
+        case COLUMNAR:
+            return new ColumnarExportWriter(filePath.length > 0 ? filePath[0] : base + ".ddbc", false);
+        case COLUMNAR_GZIP:
+            return new ColumnarExportWriter(filePath.length > 0 ? filePath[0] : base + ".ddbc.gz", true);
+        default:
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+    }
+}
+
+private static OutputStream openExportStream(String file, boolean gzip) throws IOException {
+    Path path = Paths.get(file);
+    if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+    }
+    OutputStream out = Files.newOutputStream(path);
+    // Buffer in front of gzip too - the writers emit many tiny writes (writeInt, '\n') and
+    // every unbuffered one is a separate deflate + CRC call
+    return new BufferedOutputStream(gzip ? new GZIPOutputStream(out, 1 << 16) : out, 1 << 16);
+}
+
+private static InputStream openImportStream(String file) throws IOException {
+    InputStream in = new BufferedInputStream(Files.newInputStream(Paths.get(file)), 1 << 16);
+    in.mark(2);
+    boolean gzip = in.read() == 0x1f && in.read() == 0x8b;
+    in.reset();
+    return gzip ? new BufferedInputStream(new GZIPInputStream(in, 1 << 16), 1 << 16) : in;
+}
+
+/**
+ * Encodes AttributeValues as DynamoDB JSON ({"S":"..."}, {"N":"1"}, {"M":{...}})
+ * straight into a reusable UTF-8 byte buffer - no intermediate Strings.
+ */
+public static class DynamoJsonEncoder {
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    
+    private byte[] buf = new byte[8192];
+    private int len;
+    
+    public void reset() {
+        len = 0;
+    }
+    
+    public int size() {
+        return len;
+    }
+    
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, len);
+    }
+    
+    public void writeItem(Map<String, AttributeValue> item) {
+        put('{');
+        boolean first = true;
+        for (Map.Entry<String, AttributeValue> entry : item.entrySet()) {
+            if (!first) put(',');
+            first = false;
+            writeString(entry.getKey());
+            put(':');
+            writeValue(entry.getValue());
+        }
+        put('}');
+    }
+    
+    public void writeValue(AttributeValue av) {
+        put('{');
+        if (av.s() != null) {
+            writeKey("S");
+            writeString(av.s());
+        } else if (av.n() != null) {
+            writeKey("N");
+            writeString(av.n());
+        } else if (av.bool() != null) {
+            writeKey("BOOL");
+            writeAscii(av.bool() ? "true" : "false");
+        } else if (av.nul() != null && av.nul()) {
+            writeKey("NULL");
+            writeAscii("true");
+        } else if (av.b() != null) {
+            writeKey("B");
+            writeBase64(av.b());
+        } else if (av.hasM()) {
+            writeKey("M");
+            writeItem(av.m());
+        } else if (av.hasL()) {
+            writeKey("L");
+            put('[');
+            for (int i = 0; i < av.l().size(); i++) {
+                if (i > 0) put(',');
+                writeValue(av.l().get(i));
+            }
+            put(']');
+        } else if (av.hasSs()) {
+            writeKey("SS");
+            writeStringArray(av.ss());
+        } else if (av.hasNs()) {
+            writeKey("NS");
+            writeStringArray(av.ns());
+        } else if (av.hasBs()) {
+            writeKey("BS");
+            put('[');
+            for (int i = 0; i < av.bs().size(); i++) {
+                if (i > 0) put(',');
+                writeBase64(av.bs().get(i));
+            }
+            put(']');
+        }
+        put('}');
+    }
+    
+    private void writeKey(String type) {
+        put('"');
+        writeAscii(type);
+        put('"');
+        put(':');
+    }
+    
+    private void writeStringArray(List<String> values) {
+        put('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) put(',');
+            writeString(values.get(i));
+        }
+        put(']');
+    }
+    
+    private void writeBase64(SdkBytes bytes) {
+        byte[] encoded = Base64.getEncoder().encode(bytes.asByteArrayUnsafe());
+        ensure(encoded.length + 2);
+        buf[len++] = '"';
+        System.arraycopy(encoded, 0, buf, len, encoded.length);
+        len += encoded.length;
+        buf[len++] = '"';
+    }
+    
+    private void writeAscii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            buf[len++] = (byte) s.charAt(i);
+        }
+    }
+    
+    // JSON-escaped UTF-8, surrogate pairs combined into 4-byte sequences
+    public void writeString(String s) {
+        ensure(s.length() + 2);
+        buf[len++] = '"';
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            ensure(6);  // worst case is a six-byte escape of a control character
+            if (c == '"' || c == '\\') {
+                buf[len++] = '\\';
+                buf[len++] = (byte) c;
+            } else if (c < 0x20) {
+                buf[len++] = '\\';
+                buf[len++] = 'u';
+                buf[len++] = '0';
+                buf[len++] = '0';
+                buf[len++] = HEX[c >> 4];
+                buf[len++] = HEX[c & 0xF];
+            } else if (c < 0x80) {
+                buf[len++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[len++] = (byte) (0xC0 | (c >> 6));
+                buf[len++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[len++] = (byte) (0xF0 | (cp >> 18));
+                buf[len++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[len++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[len++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                buf[len++] = (byte) (0xE0 | (c >> 12));
+                buf[len++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[len++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        ensure(1);
+        buf[len++] = '"';
+    }
+    
+    private void put(char c) {
+        ensure(1);
+        buf[len++] = (byte) c;
+    }
+    
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+}
+
+/**
+ * Newline-delimited DynamoDB JSON, optionally gzip-compressed.
+ * Every value keeps its native type, so the file can be loaded back without
+ * guessing (and is what DynamoDB's own S3 export produces).
+ * For zstd, wrap the stream yourself and use the OutputStream constructor.
+ */
+public static class NdjsonExportWriter implements ItemExportFormat {
+    private final String file;
+    private final OutputStream out;
+    private final DynamoJsonEncoder encoder = new DynamoJsonEncoder();
+    private long rowCount;
+    private boolean closed;
+    
+    public NdjsonExportWriter(String file, boolean gzip) throws IOException {
+        this(file, openExportStream(file, gzip));
+    }
+    
+    public NdjsonExportWriter(String file, OutputStream out) {
+        this.file = file;
+        this.out = out;
+    }
+    
+    @Override
+    public void write(Map<String, AttributeValue> item) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Export already closed: " + file);
+        }
+        encoder.reset();
+        encoder.writeItem(item);
+        encoder.writeTo(out);
+        out.write('\n');
+        rowCount++;
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        if (!closed) {
+            out.flush();
+        }
+    }
+    
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+    
+    @Override
+    public String getFile() {
+        return file;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        out.close();
+        System.out.println("✓ NDJSON export finished: " + rowCount + " items written to " + file);
+    }
+}
+
+/**
+ * Compact columnar binary export for large, mostly numeric tables.
+ *
+ * Layout (big-endian, via DataOutputStream):
+ *   "DDBC" magic, int version
+ *   per block of up to BLOCK_ROWS items:
+ *     int rowCount, int columnCount
+ *     per column: UTF name, byte type, long[] presence bitmap, then one value per present row
+ *       TYPE_LONG   - long         (every value in the block is an integral N)
+ *       TYPE_DOUBLE - double       (every value in the block is an N that fits a double)
+ *       TYPE_JSON   - int + bytes  (DynamoDB JSON of the AttributeValue, for everything else)
+ *   int 0 as end marker
+ *
+ * ColumnarExportReader reads it back.
+ */
+public static class ColumnarExportWriter implements ItemExportFormat {
+    public static final int BLOCK_ROWS = 4096;
+    public static final byte TYPE_LONG = 1;
+    public static final byte TYPE_DOUBLE = 2;
+    public static final byte TYPE_JSON = 3;
+    
+    private final String file;
+    private final DataOutputStream out;
+    private final DynamoJsonEncoder encoder = new DynamoJsonEncoder();
+    private final Map<String, AttributeValue[]> columns = new LinkedHashMap<>();
+    private int blockRows;
+    private long rowCount;
+    private boolean closed;
+    
+    public ColumnarExportWriter(String file, boolean gzip) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(openExportStream(file, gzip));
+        out.writeBytes("DDBC");
+        out.writeInt(1);
+    }
+    
+    @Override
+    public void write(Map<String, AttributeValue> item) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Export already closed: " + file);
+        }
+        for (Map.Entry<String, AttributeValue> entry : item.entrySet()) {
+            columns.computeIfAbsent(entry.getKey(), k -> new AttributeValue[BLOCK_ROWS])[blockRows] = entry.getValue();
+        }
+        blockRows++;
+        rowCount++;
+        if (blockRows == BLOCK_ROWS) {
+            writeBlock();
+        }
+    }
+    
+    private void writeBlock() throws IOException {
+        if (blockRows == 0) {
+            return;
+        }
+        out.writeInt(blockRows);
+        out.writeInt(columns.size());
+        
+        for (Map.Entry<String, AttributeValue[]> column : columns.entrySet()) {
+            AttributeValue[] values = column.getValue();
+            byte type = columnType(values);
+            
+            out.writeUTF(column.getKey());
+            out.writeByte(type);
+            
+            long[] presence = new long[(blockRows + 63) >>> 6];
+            for (int r = 0; r < blockRows; r++) {
+                if (values[r] != null) {
+                    presence[r >>> 6] |= 1L << (r & 63);
+                }
+            }
+            for (long word : presence) {
+                out.writeLong(word);
+            }
+            
+            for (int r = 0; r < blockRows; r++) {
+                AttributeValue av = values[r];
+                if (av == null) {
+                    continue;
+                }
+                if (type == TYPE_LONG) {
+                    out.writeLong(Long.parseLong(av.n()));
+                } else if (type == TYPE_DOUBLE) {
+                    out.writeDouble(Double.parseDouble(av.n()));
+                } else {
+                    encoder.reset();
+                    encoder.writeValue(av);
+                    out.writeInt(encoder.size());
+                    encoder.writeTo(out);
+                }
+            }
+            Arrays.fill(values, 0, blockRows, null);
+        }
+        
+        // Columns are kept across blocks, sparse ones just get an empty bitmap
+        blockRows = 0;
+    }
+    
+    private byte columnType(AttributeValue[] values) {
+        boolean integral = true;
+        for (int r = 0; r < blockRows; r++) {
+            AttributeValue av = values[r];
+            if (av == null) {
+                continue;
+            }
+            if (av.n() == null) {
+                return TYPE_JSON;
+            }
+            if (integral && !isLong(av.n())) {
+                integral = false;
+            }
+            if (!integral && !isDouble(av.n())) {
+                return TYPE_JSON;
+            }
+        }
+        return integral ? TYPE_LONG : TYPE_DOUBLE;
+    }
+    
+    private static boolean isLong(String n) {
+        int start = n.startsWith("-") ? 1 : 0;
+        if (n.length() == start || n.length() - start > 18) {
+            return false;  // up to 18 digits always fits in a long
+        }
+        for (int i = start; i < n.length(); i++) {
+            if (n.charAt(i) < '0' || n.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isDouble(String n) {
+        // DynamoDB numbers carry up to 38 digits - a double only round-trips 15 significant digits
+        int digits = 0;
+        boolean leading = true;
+        for (int i = 0; i < n.length(); i++) {
+            char c = n.charAt(i);
+            if (c == 'e' || c == 'E') {
+                break;
+            }
+            if (c >= '0' && c <= '9') {
+                if (c != '0' || !leading) {
+                    leading = false;
+                    digits++;
+                }
+            } else if (c != '-' && c != '+' && c != '.') {
+                return false;
+            }
+        }
+        if (digits > 15) {
+            return false;
+        }
+        try {
+            return !Double.isInfinite(Double.parseDouble(n));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        if (!closed) {
+            writeBlock();
+            out.flush();
+        }
+    }
+    
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+    
+    @Override
+    public String getFile() {
+        return file;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeBlock();
+            out.writeInt(0);
+        } finally {
+            out.close();
+        }
+        System.out.println("✓ Columnar export finished: " + rowCount + " items, " + columns.size() + " columns written to " + file);
+    }
+}
+
+/**
+ * Reads the DynamoDB JSON written by DynamoJsonEncoder back into
+ * AttributeValues, straight from the UTF-8 bytes. Use it for NDJSON export
+ * lines and for the JSON columns of a columnar export. Not thread-safe,
+ * keep one per reader.
+ */
+public static class DynamoJsonDecoder {
+    private final StringBuilder sb = new StringBuilder();
+    private byte[] buf;
+    private int pos;
+    private int end;
+    
+    public Map<String, AttributeValue> readItem(byte[] bytes, int offset, int length) {
+        reset(bytes, offset, length);
+        Map<String, AttributeValue> item = parseItem();
+        expectEnd();
+        return item;
+    }
+    
+    public AttributeValue readValue(byte[] bytes, int offset, int length) {
+        reset(bytes, offset, length);
+        AttributeValue value = parseValue();
+        expectEnd();
+        return value;
+    }
+    
+    private void reset(byte[] bytes, int offset, int length) {
+        buf = bytes;
+        pos = offset;
+        end = offset + length;
+    }
+    
+    private Map<String, AttributeValue> parseItem() {
+        Map<String, AttributeValue> item = new LinkedHashMap<>();
+        expect('{');
+        if (consume('}')) {
+            return item;
+        }
+        do {
+            String name = parseString();
+            expect(':');
+            item.put(name, parseValue());
+        } while (consume(','));
+        expect('}');
+        return item;
+    }
+    
+    private AttributeValue parseValue() {
+        expect('{');
+        if (consume('}')) {
+            return AttributeValue.builder().build();
+        }
+        String type = parseString();
+        expect(':');
+        
+        AttributeValue.Builder value = AttributeValue.builder();
+        switch (type) {
+            case "S":
+                value.s(parseString());
+                break;
+            case "N":
+                value.n(parseString());
+                break;
+            case "BOOL":
+                value.bool(parseBoolean());
+                break;
+            case "NULL":
+                value.nul(parseBoolean());
+                break;
+            case "B":
+                value.b(parseBinary());
+                break;
+            case "M":
+                value.m(parseItem());
+                break;
+            case "L": {
+                List<AttributeValue> list = new ArrayList<>();
+                expect('[');
+                if (!consume(']')) {
+                    do {
+                        list.add(parseValue());
+                    } while (consume(','));
+                    expect(']');
+                }
+                value.l(list);
+                break;
+            }
+            case "SS":
+                value.ss(parseStringArray());
+                break;
+            case "NS":
+                value.ns(parseStringArray());
+                break;
+            case "BS": {
+                List<SdkBytes> list = new ArrayList<>();
+                expect('[');
+                if (!consume(']')) {
+                    do {
+                        list.add(parseBinary());
+                    } while (consume(','));
+                    expect(']');
+                }
+                value.bs(list);
+                break;
+            }
+            default:
+                throw error("Unknown attribute type " + type);
+        }
+        expect('}');
+        return value.build();
+    }
+    
+    private List<String> parseStringArray() {
+        List<String> values = new ArrayList<>();
+        expect('[');
+        if (!consume(']')) {
+            do {
+                values.add(parseString());
+            } while (consume(','));
+            expect(']');
+        }
+        return values;
+    }
+    
+    private SdkBytes parseBinary() {
+        return SdkBytes.fromByteArray(Base64.getDecoder().decode(parseString()));
+    }
+    
+    private boolean parseBoolean() {
+        skipWhitespace();
+        if (matchLiteral("true")) {
+            return true;
+        }
+        if (matchLiteral("false")) {
+            return false;
+        }
+        throw error("Expected true or false");
+    }
+    
+    private boolean matchLiteral(String literal) {
+        if (end - pos < literal.length()) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (buf[pos + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        pos += literal.length();
+        return true;
+    }
+    
+    // UTF-8 continuation bytes are >= 0x80, so runs between quotes/escapes can be decoded whole
+    private String parseString() {
+        expect('"');
+        int start = pos;
+        while (pos < end && buf[pos] != '"' && buf[pos] != '\\') {
+            pos++;
+        }
+        if (pos < end && buf[pos] == '"') {
+            return new String(buf, start, pos++ - start, StandardCharsets.UTF_8);
+        }
+        
+        sb.setLength(0);
+        sb.append(new String(buf, start, pos - start, StandardCharsets.UTF_8));
+        while (true) {
+            if (pos >= end) {
+                throw error("Unterminated string");
+            }
+            if (buf[pos] == '"') {
+                pos++;
+                return sb.toString();
+            }
+            if (buf[pos] == '\\') {
+                if (pos + 1 >= end) {
+                    throw error("Unterminated escape");
+                }
+                char escaped = (char) buf[pos + 1];
+                pos += 2;
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        sb.append(escaped);
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > end) {
+                            throw error("Truncated unicode escape");
+                        }
+                        sb.append((char) Integer.parseInt(new String(buf, pos, 4, StandardCharsets.US_ASCII), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        throw error("Invalid escape \\" + escaped);
+                }
+            } else {
+                int segment = pos;
+                while (pos < end && buf[pos] != '"' && buf[pos] != '\\') {
+                    pos++;
+                }
+                sb.append(new String(buf, segment, pos - segment, StandardCharsets.UTF_8));
+            }
+        }
+    }
+    
+    private void skipWhitespace() {
+        while (pos < end && (buf[pos] == ' ' || buf[pos] == '\t' || buf[pos] == '\n' || buf[pos] == '\r')) {
+            pos++;
+        }
+    }
+    
+    private boolean consume(char c) {
+        skipWhitespace();
+        if (pos < end && buf[pos] == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+    
+    private void expect(char c) {
+        if (!consume(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+    
+    private void expectEnd() {
+        skipWhitespace();
+        if (pos != end) {
+            throw error("Unexpected trailing content");
+        }
+    }
+    
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at byte " + pos);
+    }
+}
+
+/**
+ * Reader for ColumnarExportWriter files (plain or gzip, detected from the
+ * first bytes). readBlock() hands out one block at a time with numeric
+ * columns already decoded into long[]/double[], so column scans never go
+ * through text; forEachItem() rebuilds the items for row-oriented callers.
+ * Doubles come back as the shortest decimal form of the stored value
+ * (e.g. "1.50" reads as "1.5").
+ */
+public static class ColumnarExportReader implements Closeable {
+    private final String file;
+    private final DataInputStream in;
+    private final DynamoJsonDecoder decoder = new DynamoJsonDecoder();
+    private boolean finished;
+    
+    public ColumnarExportReader(String file) throws IOException {
+        this.file = file;
+        this.in = new DataInputStream(openImportStream(file));
+        try {
+            byte[] magic = new byte[4];
+            in.readFully(magic);
+            if (!"DDBC".equals(new String(magic, StandardCharsets.US_ASCII))) {
+                throw new IOException("Not a columnar export: " + file);
+            }
+            int version = in.readInt();
+            if (version != 1) {
+                throw new IOException("Unsupported columnar export version " + version + ": " + file);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Next block of rows, or null after the last one
+     */
+    public ColumnarBlock readBlock() throws IOException {
+        if (finished) {
+            return null;
+        }
+        int rows = in.readInt();
+        if (rows == 0) {
+            finished = true;
+            return null;
+        }
+        
+        int columnCount = in.readInt();
+        Map<String, ColumnarColumn> columns = new LinkedHashMap<>();
+        for (int c = 0; c < columnCount; c++) {
+            String name = in.readUTF();
+            byte type = in.readByte();
+            long[] presence = new long[(rows + 63) >>> 6];
+            for (int w = 0; w < presence.length; w++) {
+                presence[w] = in.readLong();
+            }
+            
+            ColumnarColumn column = new ColumnarColumn(name, type, rows, presence, decoder);
+            for (int r = 0; r < rows; r++) {
+                if (!column.isPresent(r)) {
+                    continue;
+                }
+                if (type == ColumnarExportWriter.TYPE_LONG) {
+                    column.longs[r] = in.readLong();
+                } else if (type == ColumnarExportWriter.TYPE_DOUBLE) {
+                    column.doubles[r] = in.readDouble();
+                } else if (type == ColumnarExportWriter.TYPE_JSON) {
+                    byte[] json = new byte[in.readInt()];
+                    in.readFully(json);
+                    column.json[r] = json;
+                } else {
+                    throw new IOException("Unknown column type " + type + " in " + file);
+                }
+            }
+            columns.put(name, column);
+        }
+        return new ColumnarBlock(rows, columns);
+    }
+    
+    // Rebuild every item in file order, returns the number of items
+    public long forEachItem(Consumer<Map<String, AttributeValue>> consumer) throws IOException {
+        long count = 0;
+        for (ColumnarBlock block = readBlock(); block != null; block = readBlock()) {
+            for (int r = 0; r < block.getRowCount(); r++) {
+                consumer.accept(block.item(r));
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
+
+/**
+ * One block of a columnar export
+ */
+public static class ColumnarBlock {
+    private final int rowCount;
+    private final Map<String, ColumnarColumn> columns;
+    
+    ColumnarBlock(int rowCount, Map<String, ColumnarColumn> columns) {
+        this.rowCount = rowCount;
+        this.columns = columns;
+    }
+    
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    public Set<String> getColumnNames() {
+        return columns.keySet();
+    }
+    
+    public ColumnarColumn getColumn(String name) {
+        return columns.get(name);
+    }
+    
+    public Map<String, AttributeValue> item(int row) {
+        Map<String, AttributeValue> item = new LinkedHashMap<>();
+        for (ColumnarColumn column : columns.values()) {
+            if (column.isPresent(row)) {
+                item.put(column.getName(), column.getValue(row));
+            }
+        }
+        return item;
+    }
+}
+
+/**
+ * One column of a block; only the array for its type is allocated
+ */
+public static class ColumnarColumn {
+    private final String name;
+    private final byte type;
+    private final long[] presence;
+    private final DynamoJsonDecoder decoder;
+    final long[] longs;
+    final double[] doubles;
+    final byte[][] json;
+    
+    ColumnarColumn(String name, byte type, int rows, long[] presence, DynamoJsonDecoder decoder) {
+        this.name = name;
+        this.type = type;
+        this.presence = presence;
+        this.decoder = decoder;
+        this.longs = type == ColumnarExportWriter.TYPE_LONG ? new long[rows] : null;
+        this.doubles = type == ColumnarExportWriter.TYPE_DOUBLE ? new double[rows] : null;
+        this.json = type == ColumnarExportWriter.TYPE_JSON ? new byte[rows][] : null;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public byte getType() {
+        return type;
+    }
+    
+    public boolean isPresent(int row) {
+        return (presence[row >>> 6] & (1L << (row & 63))) != 0;
+    }
+    
+    public long getLong(int row) {
+        if (longs == null) {
+            throw new IllegalStateException("Column " + name + " is not a long column");
+        }
+        return longs[row];
+    }
+    
+    public double getDouble(int row) {
+        if (longs != null) {
+            return longs[row];
+        }
+        if (doubles == null) {
+            throw new IllegalStateException("Column " + name + " is not numeric");
+        }
+        return doubles[row];
+    }
+    
+    // null when the row has no value in this column
+    public AttributeValue getValue(int row) {
+        if (!isPresent(row)) {
+            return null;
+        }
+        if (longs != null) {
+            return AttributeValue.builder().n(Long.toString(longs[row])).build();
+        }
+        if (doubles != null) {
+            return AttributeValue.builder().n(Double.toString(doubles[row])).build();
+        }
+        return decoder.readValue(json[row], 0, json[row].length);
+    }
+}
@@ -0,0 +1,297 @@
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.RetryUtils;
+import software.amazon.awssdk.core.retry.conditions.AndRetryCondition;
+import software.amazon.awssdk.core.retry.conditions.RetryCondition;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+private static final int MAX_THROTTLE_RETRIES = 10;
+private static final long THROTTLE_BACKOFF_BASE_MILLIS = 50;
+private static final long THROTTLE_BACKOFF_MAX_MILLIS = 2_000;
+
+private volatile DynamoDbClient multiKeyQueryClient;
+
+/**
+ * Client for getDataForKeys, separate from the one set with setDynamoDbClient
+ * because its retry policy has to leave throttling to the AdaptiveRateLimiter:
+ * under the SDK default policy a throttled Query is retried inside the SDK
+ * while it holds its permit, and the limiter only hears about it once the SDK
+ * has given up. Build it with the same endpoint, region and credentials as
+ * the main client plus limiterOverrideConfiguration(). There is no default -
+ * getDataForKeys fails until one is set, rather than quietly going to the
+ * default AWS account while the rest of the helper talks to DynamoDB Local.
+ * (RetryMode.ADAPTIVE is the SDK's own alternative - client-side rate
+ * limiting per client - use it instead of getDataForKeys, not underneath it.)
+ */
+public void setMultiKeyQueryClient(DynamoDbClient multiKeyQueryClient) {
+    this.multiKeyQueryClient = multiKeyQueryClient;
+}
+
+private DynamoDbClient multiKeyQueryClient() {
+    DynamoDbClient client = multiKeyQueryClient;
+    if (client == null) {
+        throw new IllegalStateException("getDataForKeys needs a client with throttling retries disabled: "
+            + "setMultiKeyQueryClient(DynamoDbClient.builder()...overrideConfiguration(limiterOverrideConfiguration()).build())");
+    }
+    return client;
+}
+
+// Override configuration for the multi-key client, see setMultiKeyQueryClient
+public static ClientOverrideConfiguration limiterOverrideConfiguration() {
+    return ClientOverrideConfiguration.builder()
+        .retryPolicy(limiterRetryPolicy())
+        .build();
+}
+
+/**
+ * SDK retry policy for clients used with AdaptiveRateLimiter: transient
+ * errors (5xx, connection resets) are still retried by the SDK, throttling
+ * errors are returned straight away so the limiter sees every one of them
+ */
+public static RetryPolicy limiterRetryPolicy() {
+    return RetryPolicy.builder()
+        .retryCondition(AndRetryCondition.create(
+            RetryCondition.defaultRetryCondition(),
+            context -> !RetryUtils.isThrottlingException(context.exception())))
+        .build();
+}
+
+// Query many partitions at once, at most maxConcurrency requests in flight
+public Map<String, List<Map<String, AttributeValue>>> getDataForKeys(Collection<String> hkPrimaryKeys, String tableName,
+                                                                     int maxConcurrency) {
+    return getDataForKeys(hkPrimaryKeys, tableName, maxConcurrency, (key, items) -> { });
+}
+
+/**
+ * As above, with onKeyComplete called for each key as soon as its last page
+ * is in - use it to start processing early keys while slow ones still run
+ */
+public Map<String, List<Map<String, AttributeValue>>> getDataForKeys(Collection<String> hkPrimaryKeys, String tableName,
+                                                                     int maxConcurrency,
+                                                                     BiConsumer<String, List<Map<String, AttributeValue>>> onKeyComplete) {
+    multiKeyQueryClient();
+    ExecutorService pool = newQueryExecutor(maxConcurrency);
+    try {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(Math.min(8, maxConcurrency), 1, maxConcurrency);
+        return getDataForKeys(hkPrimaryKeys, tableName, pool, limiter, onKeyComplete);
+    } finally {
+        pool.shutdownNow();
+    }
+}
+
+/**
+ * getDataFromTable for many partition keys. Every key is paginated on its
+ * own task from the given pool, and every Query goes through the limiter,
+ * which shrinks the number of requests in flight when DynamoDB throttles and
+ * grows it back while requests succeed. onKeyComplete runs on the calling
+ * thread, once per key, in completion order - a slow key does not hold back
+ * the results of the others. Returns all results keyed in input order.
+ * If one key or onKeyComplete fails the remaining keys are cancelled.
+ * Queries go through the client set with setMultiKeyQueryClient.
+ */
+public Map<String, List<Map<String, AttributeValue>>> getDataForKeys(Collection<String> hkPrimaryKeys, String tableName,
+                                                                     ExecutorService pool, AdaptiveRateLimiter limiter,
+                                                                     BiConsumer<String, List<Map<String, AttributeValue>>> onKeyComplete) {
+    multiKeyQueryClient();
+    Set<String> keys = new LinkedHashSet<>(hkPrimaryKeys);
+    CompletionService<Map.Entry<String, List<Map<String, AttributeValue>>>> completion = new ExecutorCompletionService<>(pool);
+    List<Future<Map.Entry<String, List<Map<String, AttributeValue>>>>> tasks = new ArrayList<>();
+    for (String key : keys) {
+        tasks.add(completion.submit(() -> new AbstractMap.SimpleImmutableEntry<>(key, queryPartitionThrottled(key, tableName, limiter))));
+    }
+    
+    Map<String, List<Map<String, AttributeValue>>> results = new HashMap<>();
+    long total = 0;
+    boolean complete = false;
+    try {
+        for (int i = 0; i < tasks.size(); i++) {
+            Map.Entry<String, List<Map<String, AttributeValue>>> done = completion.take().get();
+            results.put(done.getKey(), done.getValue());
+            total += done.getValue().size();
+            onKeyComplete.accept(done.getKey(), done.getValue());
+        }
+        complete = true;
+    } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Multi-key query on " + tableName + " interrupted", e);
+    } catch (ExecutionException e) {
+        throw new RuntimeException("Multi-key query on " + tableName + " failed: " + e.getCause().getMessage(), e.getCause());
+    } finally {
+        // The pool may be the caller's, so nothing else would stop the other keys
+        if (!complete) {
+            tasks.forEach(f -> f.cancel(true));
+        }
+    }
+    
+    Map<String, List<Map<String, AttributeValue>>> ordered = new LinkedHashMap<>();
+    for (String key : keys) {
+        ordered.put(key, results.get(key));
+    }
+    
+    System.out.println("✓ Total items retrieved from " + tableName + ": " + total + " (" + keys.size() + " keys, " + limiter + ")");
+    return ordered;
+}
+
+// One partition, every page fetched under the limiter and retried with backoff when throttled
+private List<Map<String, AttributeValue>> queryPartitionThrottled(String hkPrimaryKey, String tableName,
+                                                                 AdaptiveRateLimiter limiter) throws InterruptedException {
+    List<Map<String, AttributeValue>> allItems = new ArrayList<>();
+    Map<String, AttributeValue> lastEvaluatedKey = null;
+    
+    do {
+        QueryResponse response = null;
+        for (int attempt = 0; response == null; attempt++) {
+            limiter.acquire();
+            boolean throttled = false;
+            boolean failed = true;
+            try {
+                response = multiKeyQueryClient().query(buildPartitionQuery(hkPrimaryKey, tableName, lastEvaluatedKey));
+                failed = false;
+            } catch (DynamoDbException e) {
+                if (!(e instanceof ProvisionedThroughputExceededException) && !e.isThrottlingException()) {
+                    throw e;
+                }
+                throttled = true;
+                failed = false;
+                if (attempt >= MAX_THROTTLE_RETRIES) {
+                    throw e;
+                }
+            } finally {
+                // Timeouts and other errors say nothing about capacity, so they leave the limit alone
+                if (failed) {
+                    limiter.releaseFailed();
+                } else {
+                    limiter.release(throttled);
+                }
+            }
+            
+            if (throttled) {
+                // Full jitter so the throttled workers do not come back in lockstep
+                long cap = Math.min(THROTTLE_BACKOFF_MAX_MILLIS, THROTTLE_BACKOFF_BASE_MILLIS << attempt);
+                Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+            }
+        }
+        
+        allItems.addAll(response.items());
+        lastEvaluatedKey = response.lastEvaluatedKey();
+        
+    } while (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty());
+    
+    if (queryLogging) {
+        System.out.println("Fetched " + allItems.size() + " items for " + hkPrimaryKey);
+    }
+    return allItems;
+}
+
+// Virtual thread per task on Java 21+, a fixed pool of maxConcurrency threads
+// otherwise - the snippets build on Java 11, hence the reflective lookup
+private static ExecutorService newQueryExecutor(int maxConcurrency) {
+    try {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+        return Executors.newFixedThreadPool(maxConcurrency);
+    }
+}
+
+/**
+ * AIMD limit on the number of requests in flight: +1 per limit's worth of
+ * successful requests (additive increase), halved on throttling
+ * (multiplicative decrease). Throttles that arrive together count as one
+ * decrease, so a burst does not collapse the limit straight to the minimum.
+ * Uses a lock rather than synchronized so virtual threads are not pinned
+ * while they wait. Thread-safe; share one instance per table.
+ */
+public static class AdaptiveRateLimiter {
+    private static final double BACKOFF_RATIO = 0.5;
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private final int minLimit;
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private final AtomicLong throttles = new AtomicLong();
+    private double limit;
+    private int inFlight;
+    private long lastDecrease = System.nanoTime() - DECREASE_COOLDOWN_NANOS;
+    
+    public AdaptiveRateLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Need 1 <= minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+    
+    public void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                permitReleased.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public void release(boolean throttled) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (throttled) {
+                throttles.incrementAndGet();
+                long now = System.nanoTime();
+                if (now - lastDecrease >= DECREASE_COOLDOWN_NANOS) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    lastDecrease = now;
+                }
+            } else {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Give the permit back after an error that was neither a success nor a throttle
+    public void releaseFailed() {
+        lock.lock();
+        try {
+            inFlight--;
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public long getThrottles() {
+        return throttles.get();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("AdaptiveRateLimiter[limit=%d, min=%d, max=%d, throttles=%d]",
+            getLimit(), minLimit, maxLimit, getThrottles());
+    }
+}
@@ -0,0 +1,163 @@
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import java.io.*;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+// Full table dump with one worker per segment and a shared, thread-safe sink.
+// A platform thread per segment is enough here - there are only totalSegments
+// blocking tasks - and the snippets build on Java 11, which has no virtual
+// threads. Java 21 callers can pass Executors.newVirtualThreadPerTaskExecutor().
+public long scanTableInParallel(String tableName, int totalSegments, Consumer<Map<String, AttributeValue>> sink) {
+    checkTotalSegments(totalSegments);
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(totalSegments, Runtime.getRuntime().availableProcessors() * 2));
+    try {
+        return scanTableInParallel(tableName, totalSegments, pool, segment -> sink);
+    } finally {
+        pool.shutdownNow();
+    }
+}
+
+/**
+ * Parallel Scan of a whole table split into totalSegments segments.
+ * Each segment is paginated on its own worker from the given pool and its
+ * items go to the sink returned by sinkForSegment (the same sink for every
+ * segment if it is thread-safe, or one sink per segment).
+ * Segments are collected as they finish, so the first failure cancels the
+ * remaining ones straight away.
+ */
+public long scanTableInParallel(String tableName, int totalSegments, ExecutorService pool,
+                                IntFunction<Consumer<Map<String, AttributeValue>>> sinkForSegment) {
+    checkTotalSegments(totalSegments);
+    
+    CompletionService<Long> completion = new ExecutorCompletionService<>(pool);
+    List<Future<Long>> segments = new ArrayList<>();
+    for (int segment = 0; segment < totalSegments; segment++) {
+        final int seg = segment;
+        segments.add(completion.submit(() -> scanSegment(tableName, seg, totalSegments, sinkForSegment.apply(seg))));
+    }
+    
+    long total = 0;
+    try {
+        for (int i = 0; i < segments.size(); i++) {
+            total += completion.take().get();
+        }
+    } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        segments.forEach(f -> f.cancel(true));
+        throw new RuntimeException("Parallel scan of " + tableName + " interrupted", e);
+    } catch (ExecutionException e) {
+        segments.forEach(f -> f.cancel(true));
+        throw new RuntimeException("Parallel scan of " + tableName + " failed: " + e.getCause().getMessage(), e.getCause());
+    }
+    
+    System.out.println("✓ Total items scanned from " + tableName + ": " + total + " (" + totalSegments + " segments)");
+    return total;
+}
+
+private static void checkTotalSegments(int totalSegments) {
+    if (totalSegments < 1) {
+        throw new IllegalArgumentException("totalSegments must be at least 1");
+    }
+}
+
+private long scanSegment(String tableName, int segment, int totalSegments, Consumer<Map<String, AttributeValue>> sink) {
+    Map<String, AttributeValue> lastEvaluatedKey = null;
+    long count = 0;
+    
+    do {
+        ScanRequest.Builder requestBuilder = ScanRequest.builder()
+            .tableName(tableName)
+            .segment(segment)
+            .totalSegments(totalSegments);
+        
+        if (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty()) {
+            requestBuilder.exclusiveStartKey(lastEvaluatedKey);
+        }
+        
+        ScanResponse response = dynamoDbClient.scan(requestBuilder.build());
+        for (Map<String, AttributeValue> item : response.items()) {
+            sink.accept(item);
+        }
+        count += response.count();
+        
+        lastEvaluatedKey = response.lastEvaluatedKey();
+        
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Segment " + segment + " cancelled");
+        }
+        
+    } while (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty());
+    
+    System.out.println("Segment " + segment + "/" + totalSegments + " done: " + count + " items");
+    return count;
+}
+
+/**
+ * Dump a whole table to CSV, one file per segment (<baseName>-seg<N>.csv)
+ * so the workers never contend on a shared writer.
+ */
+public long exportTableToCSV(String tableName, int totalSegments, ExecutorService pool, String baseName) throws IOException {
+    checkTotalSegments(totalSegments);
+    CsvExportSession[] sessions = new CsvExportSession[totalSegments];
+    Throwable primary = null;
+    try {
+        for (int i = 0; i < totalSegments; i++) {
+            sessions[i] = openCsvExport(Constants.reportFolder + baseName + "-seg" + i + ".csv");
+        }
+        
+        return scanTableInParallel(tableName, totalSegments, pool, segment -> item -> {
+            try {
+                sessions[segment].write(item);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    } catch (Throwable t) {
+        primary = t;
+        throw t;
+    } finally {
+        closeAll(sessions, primary);
+    }
+}
+
+// Close every session even if some fail; close errors never hide the export's own failure
+private static void closeAll(CsvExportSession[] sessions, Throwable primary) throws IOException {
+    IOException closeFailure = null;
+    for (CsvExportSession session : sessions) {
+        if (session == null) {
+            continue;
+        }
+        try {
+            session.close();
+        } catch (IOException e) {
+            if (primary != null) {
+                primary.addSuppressed(e);
+            } else if (closeFailure == null) {
+                closeFailure = e;
+            } else {
+                closeFailure.addSuppressed(e);
+            }
+        }
+    }
+    if (closeFailure != null) {
+        throw closeFailure;
+    }
+}
+
+// Client for DynamoDB Local (e.g. http://localhost:8000) - use it to run the parallel scan in tests
+public static DynamoDbClient localDynamoDbClient(String endpoint) {
+    return DynamoDbClient.builder()
+        .endpointOverride(URI.create(endpoint))
+        .region(Region.US_EAST_1)
+        .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("local", "local")))
+        .build();
+}
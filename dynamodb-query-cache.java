@@ -0,0 +1,258 @@
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+private volatile QueryResultCache queryCache;
+
+// Opt in to caching partition reads for this helper instance
+public void enableQueryCache(int maxEntries, Duration ttl) {
+    queryCache = new QueryResultCache(maxEntries, ttl);
+}
+
+public void disableQueryCache() {
+    queryCache = null;
+}
+
+public QueryResultCache getQueryCache() {
+    return queryCache;
+}
+
+/**
+ * Same as getDataFromTable, but served from the query cache when it is enabled.
+ * Concurrent misses for the same partition share one Query.
+ * The returned list is read-only because it is shared between callers.
+ */
+public List<Map<String, AttributeValue>> getDataFromTableCached(String hkPrimaryKey, String tableName) {
+    QueryResultCache cache = queryCache;
+    if (cache == null) {
+        return getDataFromTable(hkPrimaryKey, tableName);
+    }
+    return cache.getOrLoad(tableName, hkPrimaryKey,
+        () -> Collections.unmodifiableList(getDataFromTable(hkPrimaryKey, tableName)));
+}
+
+// Call after writing to a partition so the next read goes back to DynamoDB
+public void invalidateCachedPartition(String tableName, String hkPrimaryKey) {
+    QueryResultCache cache = queryCache;
+    if (cache != null) {
+        cache.invalidate(tableName, hkPrimaryKey);
+    }
+}
+
+public void invalidateCachedTable(String tableName) {
+    QueryResultCache cache = queryCache;
+    if (cache != null) {
+        cache.invalidateTable(tableName);
+    }
+}
+
+/**
+ * Size-bounded LRU cache of partition query results with a time-to-live.
+ * Keyed by (table, partition key). Thread-safe.
+ * getOrLoad runs at most one load per key at a time; invalidating a key
+ * while its load is in flight stops that load's result from being cached.
+ */
+public static class QueryResultCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, CacheEntry> entries;
+    private final Map<String, PendingLoad> loading = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong coalescedLoads = new AtomicLong();
+    
+    public QueryResultCache(int maxEntries, Duration ttl) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        // Access-ordered LinkedHashMap gives LRU order, eldest entry is dropped when full
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > QueryResultCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    private static String key(String tableName, String hkPrimaryKey) {
+        return tableName + '\u0000' + hkPrimaryKey;
+    }
+    
+    public synchronized List<Map<String, AttributeValue>> get(String tableName, String hkPrimaryKey) {
+        return lookup(key(tableName, hkPrimaryKey));
+    }
+    
+    private List<Map<String, AttributeValue>> lookup(String key) {
+        CacheEntry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (System.nanoTime() - entry.loadedAt > ttlNanos) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.items;
+    }
+    
+    public synchronized void put(String tableName, String hkPrimaryKey, List<Map<String, AttributeValue>> items) {
+        entries.put(key(tableName, hkPrimaryKey), new CacheEntry(items, System.nanoTime()));
+    }
+    
+    /**
+     * Cached value, or the result of loader. Callers that miss while a load
+     * for the same key is running wait for it instead of loading again.
+     * The result is only cached if the key was not invalidated meanwhile.
+     */
+    public List<Map<String, AttributeValue>> getOrLoad(String tableName, String hkPrimaryKey,
+                                                       Supplier<List<Map<String, AttributeValue>>> loader) {
+        String key = key(tableName, hkPrimaryKey);
+        PendingLoad load;
+        boolean owner = false;
+        synchronized (this) {
+            List<Map<String, AttributeValue>> cached = lookup(key);
+            if (cached != null) {
+                return cached;
+            }
+            load = loading.get(key);
+            if (load != null) {
+                coalescedLoads.incrementAndGet();
+            } else {
+                load = new PendingLoad();
+                loading.put(key, load);
+                owner = true;
+            }
+        }
+        if (!owner) {
+            return load.await();
+        }
+        
+        List<Map<String, AttributeValue>> items;
+        try {
+            items = loader.get();
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                loading.remove(key, load);
+            }
+            load.result.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            loading.remove(key, load);
+            if (!load.invalidated) {
+                entries.put(key, new CacheEntry(items, System.nanoTime()));
+            }
+        }
+        load.result.complete(items);
+        return items;
+    }
+    
+    public synchronized void invalidate(String tableName, String hkPrimaryKey) {
+        String key = key(tableName, hkPrimaryKey);
+        entries.remove(key);
+        PendingLoad load = loading.remove(key);
+        if (load != null) {
+            load.invalidated = true;
+        }
+    }
+    
+    public synchronized void invalidateTable(String tableName) {
+        String prefix = tableName + '\u0000';
+        entries.keySet().removeIf(k -> k.startsWith(prefix));
+        invalidateLoads(k -> k.startsWith(prefix));
+    }
+    
+    public synchronized void clear() {
+        entries.clear();
+        invalidateLoads(k -> true);
+    }
+    
+    // Loads still running keep going for their waiters, but their result is not cached
+    private void invalidateLoads(Predicate<String> keys) {
+        Iterator<Map.Entry<String, PendingLoad>> it = loading.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, PendingLoad> e = it.next();
+            if (keys.test(e.getKey())) {
+                e.getValue().invalidated = true;
+                it.remove();
+            }
+        }
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    public long getHits() {
+        return hits.get();
+    }
+    
+    public long getMisses() {
+        return misses.get();
+    }
+    
+    public long getEvictions() {
+        return evictions.get();
+    }
+    
+    // Misses that waited for another caller's load instead of querying
+    public long getCoalescedLoads() {
+        return coalescedLoads.get();
+    }
+    
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("QueryResultCache[size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%]",
+            size(), maxEntries, getHits(), getMisses(), getEvictions(), getHitRate() * 100);
+    }
+    
+    private static class PendingLoad {
+        final CompletableFuture<List<Map<String, AttributeValue>>> result = new CompletableFuture<>();
+        boolean invalidated;  // guarded by the cache lock
+        
+        List<Map<String, AttributeValue>> await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+    
+    private static class CacheEntry {
+        final List<Map<String, AttributeValue>> items;
+        final long loadedAt;
+        
+        CacheEntry(List<Map<String, AttributeValue>> items, long loadedAt) {
+            this.items = items;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
 
@@ -69,8 +70,8 @@ public void addToCSV(Map<String, AttributeValue> item, String... filePath) throw
     writer.close();
 }
 
-// Simple helper to convert any AttributeValue to String
-private String attributeValueToString(AttributeValue av) {
+// Simple helper to convert any AttributeValue to String (package-private for the export benchmarks)
+String attributeValueToString(AttributeValue av) {
     if (av.s() != null) {
         return av.s();  // String
     }
@@ -97,3 +98,304 @@ private String attributeValueToString(AttributeValue av) {
     }
     return "";
 }
+
+// Open a long-lived CSV export session - use this instead of addToCSV when exporting many items
+public CsvExportSession openCsvExport(String... filePath) throws IOException {
+    String file = filePath.length > 0 ? filePath[0] : Constants.reportFolder + "DBEntries-" + Constants.TIMESTAMP + ".csv";
+    return new CsvExportSession(file);
+}
+
+// Open a CSV export for tables whose attributes change from item to item - header is written once at close
+public DeferredCsvExportSession openDeferredCsvExport(String... filePath) throws IOException {
+    String file = filePath.length > 0 ? filePath[0] : Constants.reportFolder + "DBEntries-" + Constants.TIMESTAMP + ".csv";
+    return new DeferredCsvExportSession(file);
+}
+
+/**
+ * CSV export session that keeps the file open for the whole export.
+ * The header is read (or written) once and kept in memory, rows go through
+ * one large buffered writer. Call flush() to push rows to disk and close()
+ * when the export is done.
+ */
+public class CsvExportSession implements ItemExportFormat {
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private final String file;
+    private final List<String> headerList = new ArrayList<>();
+    private final Set<String> headerSet = new HashSet<>();
+    private BufferedWriter writer;
+    private String headerLine;
+    private long rowCount;
+    private boolean closed;
+    
+    private CsvExportSession(String file) throws IOException {
+        this.file = file;
+        
+        File theDir = new File(Constants.reportFolder);
+        if (!theDir.exists()) {
+            theDir.mkdirs();
+        }
+        
+        File csvFile = new File(file);
+        if (csvFile.exists() && csvFile.length() > 0) {
+            // Appending to an existing export - read the header once
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                headerLine = reader.readLine();
+            }
+            if (headerLine != null) {
+                for (String h : headerLine.split(",")) {
+                    addHeader(h);
+                }
+            }
+        }
+        
+        writer = openWriter();
+    }
+    
+    private BufferedWriter openWriter() throws IOException {
+        return new BufferedWriter(new FileWriter(file, true), BUFFER_SIZE);
+    }
+    
+    private boolean addHeader(String header) {
+        if (headerSet.add(header)) {
+            headerList.add(header);
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public void write(Map<String, AttributeValue> item) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("CSV export session already closed: " + file);
+        }
+        
+        if (headerLine == null) {
+            // First row of a new file - header comes from this item
+            for (String key : item.keySet()) {
+                addHeader(key);
+            }
+            headerLine = writeHeader();
+        } else {
+            boolean newColumns = false;
+            for (String key : item.keySet()) {
+                newColumns |= addHeader(key);
+            }
+            if (newColumns) {
+                // Rare case - rewrite the header line in place, then carry on appending
+                writer.close();
+                replaceLineInLog(headerList, headerLine, file);
+                headerLine = buildHeaderLine();
+                writer = openWriter();
+            }
+        }
+        
+        for (String header : headerList) {
+            AttributeValue av = item.get(header);
+            if (av != null) {
+                writer.append(attributeValueToString(av).replace(",", ":"));
+            }
+            writer.append(',');
+        }
+        writer.newLine();
+        rowCount++;
+    }
+    
+    private String writeHeader() throws IOException {
+        String line = buildHeaderLine();
+        writer.append(line);
+        writer.newLine();
+        return line;
+    }
+    
+    private String buildHeaderLine() {
+        StringBuilder sb = new StringBuilder();
+        for (String header : headerList) {
+            sb.append(header).append(",");
+        }
+        return sb.toString();
+    }
+    
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+    
+    @Override
+    public String getFile() {
+        return file;
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        if (!closed) {
+            writer.flush();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writer.close();
+        System.out.println("✓ CSV export finished: " + rowCount + " rows written to " + file);
+    }
+}
+
+/**
+ * CSV export session for sparse or drifting schemas.
+ * Rows are spooled to a temp file as (column index, value) pairs while the
+ * union of attribute names is collected. On close() the final header is
+ * written once and the spool is replayed into the target file, so new
+ * columns never trigger a rewrite of what has already been exported.
+ * The target file is always written from scratch, and only replaced once
+ * the replay has succeeded. Call abort() to drop an export without closing it.
+ */
+public class DeferredCsvExportSession implements ItemExportFormat {
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private final String file;
+    private final Path spoolFile;
+    private final List<String> headerList = new ArrayList<>();
+    private final Map<String, Integer> columnIndex = new HashMap<>();
+    private DataOutputStream spool;
+    private long rowCount;
+    private boolean closed;
+    
+    private DeferredCsvExportSession(String file) throws IOException {
+        this.file = file;
+        
+        File theDir = new File(Constants.reportFolder);
+        if (!theDir.exists()) {
+            theDir.mkdirs();
+        }
+        
+        spoolFile = Files.createTempFile(theDir.toPath(), "DBEntries-", ".spool");
+        spool = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spoolFile), BUFFER_SIZE));
+    }
+    
+    @Override
+    public void write(Map<String, AttributeValue> item) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("CSV export session already closed: " + file);
+        }
+        
+        try {
+            spool.writeInt(item.size());
+            for (Map.Entry<String, AttributeValue> entry : item.entrySet()) {
+                Integer index = columnIndex.get(entry.getKey());
+                if (index == null) {
+                    index = headerList.size();
+                    columnIndex.put(entry.getKey(), index);
+                    headerList.add(entry.getKey());
+                }
+                spool.writeInt(index);
+                writeValue(attributeValueToString(entry.getValue()).replace(",", ":"));
+            }
+        } catch (IOException | RuntimeException e) {
+            // A half-written row leaves the spool unreadable - drop it instead of leaking it
+            abort();
+            throw e;
+        }
+        rowCount++;
+    }
+    
+    private void writeValue(String value) throws IOException {
+        // writeUTF is capped at 64 KB, large maps/lists can exceed that
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        spool.writeInt(bytes.length);
+        spool.write(bytes);
+    }
+    
+    private String readValue(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+    
+    @Override
+    public String getFile() {
+        return file;
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        if (!closed) {
+            spool.flush();
+        }
+    }
+    
+    /**
+     * Give up on the export: the spool is closed and deleted, the target file is not touched
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            spool.close();
+        } catch (IOException e) {
+            // deleting it anyway
+        }
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            System.err.println("Could not delete CSV export spool " + spoolFile + ": " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        spool.close();
+        
+        // Replay into a sibling file and move it over the target, so a failed replay
+        // neither truncates the target nor loses the rows (the spool is kept)
+        Path target = Paths.get(file);
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(spoolFile), BUFFER_SIZE));
+             BufferedWriter writer = new BufferedWriter(new FileWriter(partial.toFile(), false), BUFFER_SIZE)) {
+            
+            for (String header : headerList) {
+                writer.append(header).append(",");
+            }
+            writer.newLine();
+            
+            String[] row = new String[headerList.size()];
+            for (long r = 0; r < rowCount; r++) {
+                Arrays.fill(row, null);
+                int cells = in.readInt();
+                for (int c = 0; c < cells; c++) {
+                    int index = in.readInt();
+                    row[index] = readValue(in);
+                }
+                for (String val : row) {
+                    if (val != null) {
+                        writer.append(val);
+                    }
+                    writer.append(',');
+                }
+                writer.newLine();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw new IOException("CSV export to " + file + " failed, rows are kept in " + spoolFile + ": " + e.getMessage(), e);
+        }
+        
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(spoolFile);
+        
+        System.out.println("✓ CSV export finished: " + rowCount + " rows, " + headerList.size() + " columns written to " + file);
+    }
+}
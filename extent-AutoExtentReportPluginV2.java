@@ -8,11 +8,9 @@ import com.aventstack.extentreports.reporter.configuration.Theme;
 import io.cucumber.plugin.EventListener;
 import io.cucumber.plugin.event.*;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -20,7 +18,8 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Alternative approach - reads feature name from the actual feature file
+ * Alternative approach - takes the feature name from the feature file source
+ * Cucumber has already loaded (TestSourceRead), so no file I/O per scenario
  */
 public class AutoExtentReportPluginV2 implements EventListener {
     
@@ -33,6 +32,9 @@ public class AutoExtentReportPluginV2 implements EventListener {
     private static final String TIMESTAMP = new SimpleDateFormat("ddMMyyHHmmss").format(new Date());
     private static final String BASE_DIR = System.getProperty("user.dir") + File.separator + "Reports";
     private static String reportPath;
+    private static String reportFolder;
+    private static final StepLatencyRecorder latencyRecorder = new StepLatencyRecorder();
+    private static final FailureIndex failureIndex = new FailureIndex(2000);
     
     static {
         initializeReport();
@@ -40,11 +42,12 @@ public class AutoExtentReportPluginV2 implements EventListener {
     
     private static void initializeReport() {
         try {
-            String reportFolder = BASE_DIR + File.separator + "Test-Reports-" + TIMESTAMP + File.separator;
+            reportFolder = BASE_DIR + File.separator + "Test-Reports-" + TIMESTAMP + File.separator;
             reportPath = reportFolder + "ExtentReport.html";
             
             Files.createDirectories(Paths.get(reportFolder));
             Files.createDirectories(Paths.get(reportFolder + "screenshots"));
+            DirectExtentManager.setScreenshotFolder(reportFolder + "screenshots");
             
             ExtentSparkReporter spark = new ExtentSparkReporter(reportPath);
             spark.config().setTheme(Theme.STANDARD);
@@ -59,6 +62,10 @@ public class AutoExtentReportPluginV2 implements EventListener {
             
             DirectExtentManager.setExtentReports(extent);
             
+            // Page object locator timings, published at run end
+            LocatorMetrics.addSink(new LocatorMetrics.JsonFileSink(Paths.get(reportFolder + "locator-latency.json")));
+            LocatorMetrics.addSink(new LocatorMetrics.ReportSink(extent, 20));
+            
             System.out.println("==========================================");
             System.out.println("AutoExtentReportPlugin V2 Initialized");
             System.out.println("Report: " + reportPath);
@@ -72,6 +79,7 @@ public class AutoExtentReportPluginV2 implements EventListener {
     @Override
     public void setEventPublisher(EventPublisher publisher) {
         publisher.registerHandlerFor(TestRunStarted.class, this::handleTestRunStarted);
+        publisher.registerHandlerFor(TestSourceRead.class, this::handleTestSourceRead);
         publisher.registerHandlerFor(TestCaseStarted.class, this::handleTestCaseStarted);
         publisher.registerHandlerFor(TestCaseFinished.class, this::handleTestCaseFinished);
         publisher.registerHandlerFor(TestStepStarted.class, this::handleTestStepStarted);
@@ -104,27 +112,64 @@ public class AutoExtentReportPluginV2 implements EventListener {
     }
     
     /**
-     * Enhanced feature name extraction - tries multiple methods
+     * Index URI -> feature name from the source Cucumber read before the run
+     */
+    private void handleTestSourceRead(TestSourceRead event) {
+        try {
+            String featureName = parseFeatureNameFromSource(event.getSource());
+            if (featureName != null && !featureName.isEmpty()) {
+                featureNameCache.put(event.getUri().toString(), featureName);
+            }
+        } catch (Exception e) {
+            System.err.println("Could not index feature source: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Find the Feature: line in the feature file source - single pass, no line splitting
+     */
+    private String parseFeatureNameFromSource(String source) {
+        if (source == null) {
+            return null;
+        }
+        
+        int lineStart = 0;
+        int length = source.length();
+        while (lineStart < length) {
+            int lineEnd = source.indexOf('\n', lineStart);
+            if (lineEnd == -1) {
+                lineEnd = length;
+            }
+            
+            int i = lineStart;
+            while (i < lineEnd && Character.isWhitespace(source.charAt(i))) {
+                i++;
+            }
+            if (source.startsWith("Feature:", i)) {
+                return source.substring(i + 8, lineEnd).trim();
+            }
+            
+            lineStart = lineEnd + 1;
+        }
+        return null;
+    }
+    
+    /**
+     * Feature name lookup - indexed from TestSourceRead, path-based fallback
      */
     private String extractFeatureName(io.cucumber.plugin.event.TestCase testCase) {
         String uriString = testCase.getUri().toString();
         
-        // Check cache first
-        if (featureNameCache.containsKey(uriString)) {
-            return featureNameCache.get(uriString);
+        // Indexed when the feature source was read
+        String featureName = featureNameCache.get(uriString);
+        if (featureName != null) {
+            return featureName;
         }
         
-        String featureName = null;
-        
-        // Method 1: Try to read from the feature file directly
-        featureName = readFeatureNameFromFile(uriString);
-        
-        // Method 2: Parse from URI path
-        if (featureName == null || featureName.isEmpty()) {
-            featureName = parseFeatureNameFromPath(uriString);
-        }
+        // Fallback: parse from URI path
+        featureName = parseFeatureNameFromPath(uriString);
         
-        // Method 3: Use scenario name prefix if it looks like a feature
+        // Last resort: use scenario name prefix if it looks like a feature
         if (featureName == null || featureName.isEmpty()) {
             String scenarioName = testCase.getName();
             if (scenarioName.contains(" - ")) {
@@ -134,65 +179,12 @@ public class AutoExtentReportPluginV2 implements EventListener {
             }
         }
         
-        // Cache the result
+        // Cache the result so the fallback only runs once per feature file
         featureNameCache.put(uriString, featureName);
         
         return featureName;
     }
     
-    /**
-     * Read Feature: line from the actual feature file
-     */
-    private String readFeatureNameFromFile(String uri) {
-        try {
-            // Try to load as a classpath resource
-            if (uri.contains("classpath:")) {
-                String resourcePath = uri.substring(uri.indexOf("classpath:") + 10);
-                InputStream is = getClass().getClassLoader().getResourceAsStream(resourcePath);
-                
-                if (is == null) {
-                    // Try without leading slash
-                    if (resourcePath.startsWith("/")) {
-                        resourcePath = resourcePath.substring(1);
-                    }
-                    is = getClass().getClassLoader().getResourceAsStream(resourcePath);
-                }
-                
-                if (is != null) {
-                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            line = line.trim();
-                            if (line.startsWith("Feature:")) {
-                                return line.substring(8).trim();
-                            }
-                        }
-                    }
-                }
-            }
-            
-            // Try file system path
-            if (uri.contains("file:")) {
-                java.net.URI fileUri = new java.net.URI(uri);
-                File file = new File(fileUri.getPath());
-                
-                if (file.exists()) {
-                    for (String line : Files.readAllLines(file.toPath())) {
-                        line = line.trim();
-                        if (line.startsWith("Feature:")) {
-                            return line.substring(8).trim();
-                        }
-                    }
-                }
-            }
-            
-        } catch (Exception e) {
-            System.err.println("Could not read feature file: " + e.getMessage());
-        }
-        
-        return null;
-    }
-    
     /**
      * Parse feature name from file path
      */
@@ -268,13 +260,22 @@ public class AutoExtentReportPluginV2 implements EventListener {
     private void handleTestStepFinished(TestStepFinished event) {
         try {
             if (event.getTestStep() instanceof PickleStepTestStep) {
+                Result result = event.getResult();
+                if (result.getDuration() != null) {
+                    PickleStepTestStep pickleStep = (PickleStepTestStep) event.getTestStep();
+                    String key = pickleStep.getPattern() != null ? pickleStep.getPattern() : pickleStep.getStep().getText();
+                    latencyRecorder.recordStep(key, result.getDuration().toNanos());
+                }
+                
                 ExtentTest step = stepTest.get();
                 if (step != null) {
-                    Result result = event.getResult();
                     Status status = mapStatus(result.getStatus());
                     
                     if (result.getError() != null) {
                         step.log(status, "Step failed: " + result.getError().getMessage());
+                        FailureIndex.Failure failure = failureIndex.record(result.getError(), event.getTestCase().getName());
+                        step.fail("Failure <b>" + failure.getId() + "</b> (" + failure.getType() + 
+                                 ") - stack trace in Failure Index");
                     } else {
                         step.log(status, "Step " + status.toString().toLowerCase());
                     }
@@ -287,6 +288,10 @@ public class AutoExtentReportPluginV2 implements EventListener {
     
     private void handleTestCaseFinished(TestCaseFinished event) {
         try {
+            if (event.getResult().getDuration() != null) {
+                latencyRecorder.recordScenario(event.getResult().getDuration().toNanos());
+            }
+            
             ExtentTest scenario = scenarioTest.get();
             if (scenario != null) {
                 Result result = event.getResult();
@@ -305,12 +310,36 @@ public class AutoExtentReportPluginV2 implements EventListener {
     }
     
     private void handleTestRunFinished(TestRunFinished event) {
+        writeRunMetrics();
+        DirectExtentManager.awaitPendingScreenshots(60);
         extent.flush();
         System.out.println("==========================================");
         System.out.println("Report Generated: " + reportPath);
         System.out.println("==========================================");
     }
     
+    /**
+     * Step latency, slowest locators and the Failure Index - same output as AutoExtentReportPlugin
+     */
+    private void writeRunMetrics() {
+        try {
+            if (!latencyRecorder.isEmpty()) {
+                Path json = Paths.get(reportFolder + "step-latency.json");
+                Path prom = Paths.get(reportFolder + "step-latency.prom");
+                latencyRecorder.writeJson(json);
+                latencyRecorder.writePrometheus(prom);
+                latencyRecorder.addReportTest(extent, json, prom);
+            }
+            LocatorMetrics.publish();
+            if (!failureIndex.isEmpty()) {
+                failureIndex.addReportTest(extent);
+            }
+        } catch (Exception e) {
+            System.err.println("Error writing run metrics: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
     private Status mapStatus(io.cucumber.plugin.event.Status cucumberStatus) {
         if (cucumberStatus == null) return Status.INFO;
         
@@ -0,0 +1,547 @@
+package com.example.reporting;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.configuration.Theme;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Non-blocking variant of AutoExtentReportPlugin for parallel runs.
+ * Cucumber handlers only turn each event into a small immutable record and
+ * put it on a bounded lock-free queue (ConcurrentLinkedQueue plus a permit
+ * count for the bound). A single consumer thread owns the ExtentReports
+ * tree and builds every feature/scenario/step node, so scenario threads never
+ * wait on report internals (they only wait if the queue is full).
+ *
+ * ExtentTest nodes only exist on the consumer thread, so DirectExtentManager
+ * has no current test in this mode - log from steps with
+ * AsyncExtentReportPlugin.log(...) instead.
+ *
+ * If the consumer thread dies the report is lost, but the run is not: the
+ * error is printed and from then on events are dropped instead of queued,
+ * so scenario threads never block on a queue nobody drains.
+ *
+ * Streaming mode (for long runs) keeps heap flat by splitting the report
+ * into parts:
+ *   -Dextent.stream.featuresPerPart=N   start a new ExtentReport-partK.html
+ *                                       once the current part holds N features;
+ *                                       a part is flushed and released as soon
+ *                                       as its last running scenario finishes
+ *   -Dextent.stream.flushIntervalSec=S  also flush the current part every S
+ *                                       seconds, so a crash loses little
+ * ExtentReport.html then becomes an index page linking the parts.
+ */
+public class AsyncExtentReportPlugin implements ConcurrentEventListener {
+    
+    private static final int QUEUE_CAPACITY = Integer.getInteger("extent.async.queueSize", 8192);
+    
+    // Streaming mode - 0 keeps the whole run in a single report
+    private static final int FEATURES_PER_PART = Integer.getInteger("extent.stream.featuresPerPart", 0);
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("extent.stream.flushIntervalSec", 0L));
+    
+    private static String reportFolder;
+    private static String reportPath;
+    private static ReportPart currentPart;  // consumer thread only after startup
+    private static final Queue<ReportEvent> queue = new ConcurrentLinkedQueue<>();
+    private static final Semaphore capacity = new Semaphore(QUEUE_CAPACITY);
+    private static final Thread consumer = new Thread(AsyncExtentReportPlugin::consumeEvents, "extent-report-writer");
+    private static volatile boolean consumerStopped;
+    private static volatile Throwable consumerFailure;
+    private static final FailureIndex failureIndex = new FailureIndex(2000);
+    private static final StepLatencyRecorder latencyRecorder = new StepLatencyRecorder();  // thread-safe, fed by producers
+    
+    // Scenario thread -> ids of the scenario/step it is running, for log()
+    private static ThreadLocal<UUID> currentCaseId = new ThreadLocal<>();
+    private static ThreadLocal<UUID> currentStepId = new ThreadLocal<>();
+    
+    private static final String TIMESTAMP = new SimpleDateFormat("ddMMyyHHmmss").format(new Date());
+    private static final String BASE_DIR = System.getProperty("user.dir") + File.separator + "Reports";
+    
+    static {
+        initializeReport();
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+    
+    private static void initializeReport() {
+        try {
+            reportFolder = BASE_DIR + File.separator + "Test-Reports-" + TIMESTAMP + File.separator;
+            reportPath = reportFolder + "ExtentReport.html";
+            
+            Files.createDirectories(Paths.get(reportFolder));
+            Files.createDirectories(Paths.get(reportFolder + "screenshots"));
+            DirectExtentManager.setScreenshotFolder(reportFolder + "screenshots");
+            
+            currentPart = new ReportPart(1);
+            
+            // Page object locator timings; the report sink is added at run end, once the last part is known
+            LocatorMetrics.addSink(new LocatorMetrics.JsonFileSink(Paths.get(reportFolder + "locator-latency.json")));
+            
+            System.out.println("==========================================");
+            System.out.println("AsyncExtentReportPlugin Initialized");
+            System.out.println("Report: " + reportPath);
+            if (FEATURES_PER_PART > 0) {
+                System.out.println("Streaming mode: " + FEATURES_PER_PART + " features per report part");
+            }
+            System.out.println("==========================================");
+            
+        } catch (Exception e) {
+            System.err.println("Failed to initialize ExtentReports: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    private static ExtentReports createExtentReports(String path) {
+        ExtentSparkReporter spark = new ExtentSparkReporter(path);
+        spark.config().setTheme(Theme.STANDARD);
+        spark.config().setDocumentTitle("Automation Test Report");
+        spark.config().setReportName("Cucumber Test Report");
+        spark.config().setTimeStampFormat("dd-MM-yyyy HH:mm:ss");
+        spark.config().setTimelineEnabled(false);
+        
+        ExtentReports extentReports = new ExtentReports();
+        extentReports.attachReporter(spark);
+        extentReports.setSystemInfo("Platform", "Android");
+        extentReports.setSystemInfo("Environment", "QA");
+        extentReports.setSystemInfo("Framework", "Cucumber + Appium");
+        extentReports.setSystemInfo("Execution Time", new SimpleDateFormat("dd-MM-yyyy HH:mm:ss").format(new Date()));
+        
+        DirectExtentManager.setExtentReports(extentReports);
+        return extentReports;
+    }
+    
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestCaseStarted.class, this::handleTestCaseStarted);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::handleTestCaseFinished);
+        publisher.registerHandlerFor(TestStepStarted.class, this::handleTestStepStarted);
+        publisher.registerHandlerFor(TestStepFinished.class, this::handleTestStepFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, this::handleTestRunFinished);
+    }
+    
+    /**
+     * Log against the step currently running on this thread (or its scenario).
+     */
+    public static void log(Status status, String message) {
+        UUID target = currentStepId.get() != null ? currentStepId.get() : currentCaseId.get();
+        if (target != null) {
+            enqueue(new NodeLog(target, status, message));
+        }
+        System.out.println("[" + status + "] " + message);
+    }
+    
+    // ---------------------------------------------------------------
+    // Producer side - runs on scenario threads, only builds records
+    // ---------------------------------------------------------------
+    
+    private void handleTestCaseStarted(TestCaseStarted event) {
+        TestCase testCase = event.getTestCase();
+        currentCaseId.set(testCase.getId());
+        enqueue(new ScenarioStarted(testCase.getId(), getFeatureName(testCase.getUri()),
+            testCase.getName(), testCase.getTags()));
+    }
+    
+    private void handleTestStepStarted(TestStepStarted event) {
+        if (event.getTestStep() instanceof PickleStepTestStep) {
+            PickleStepTestStep step = (PickleStepTestStep) event.getTestStep();
+            String stepText = step.getStep().getKeyword() + step.getStep().getText();
+            
+            if (step.getStep().getArgument() instanceof DocStringArgument) {
+                stepText += "\n```\n" + ((DocStringArgument) step.getStep().getArgument()).getContent() + "\n```";
+            } else if (step.getStep().getArgument() instanceof DataTableArgument) {
+                stepText += " [DataTable]";
+            }
+            
+            currentStepId.set(step.getId());
+            enqueue(new StepStarted(event.getTestCase().getId(), step.getId(), stepText));
+        }
+    }
+    
+    private void handleTestStepFinished(TestStepFinished event) {
+        if (event.getTestStep() instanceof PickleStepTestStep) {
+            if (event.getResult().getDuration() != null) {
+                PickleStepTestStep step = (PickleStepTestStep) event.getTestStep();
+                String key = step.getPattern() != null ? step.getPattern() : step.getStep().getText();
+                latencyRecorder.recordStep(key, event.getResult().getDuration().toNanos());
+            }
+            currentStepId.remove();
+            enqueue(new NodeFinished(event.getTestStep().getId(), event.getResult(), event.getTestCase().getName()));
+        }
+    }
+    
+    private void handleTestCaseFinished(TestCaseFinished event) {
+        if (event.getResult().getDuration() != null) {
+            latencyRecorder.recordScenario(event.getResult().getDuration().toNanos());
+        }
+        currentStepId.remove();
+        currentCaseId.remove();
+        enqueue(new NodeFinished(event.getTestCase().getId(), event.getResult(), null));
+    }
+    
+    private void handleTestRunFinished(TestRunFinished event) {
+        // Screenshots are written on a background pool - the report must not point at files still being written
+        DirectExtentManager.awaitPendingScreenshots(60);
+        enqueue(RunFinished.INSTANCE);
+        try {
+            // Wait for the consumer to drain the queue and flush
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (consumerFailure != null) {
+            System.err.println("==========================================");
+            System.err.println("Report writer failed, report is incomplete: " + consumerFailure);
+            System.err.println("==========================================");
+            return;
+        }
+        System.out.println("==========================================");
+        System.out.println("Report Generated Successfully!");
+        System.out.println("Location: " + reportPath);
+        System.out.println("==========================================");
+    }
+    
+    private static void enqueue(ReportEvent event) {
+        if (consumerStopped) {
+            return;
+        }
+        // Uncontended path is CAS only - a producer waits only when the queue is full
+        capacity.acquireUninterruptibly();
+        queue.offer(event);
+        LockSupport.unpark(consumer);
+    }
+    
+    // ---------------------------------------------------------------
+    // Consumer side - single thread, owns every ExtentTest
+    // ---------------------------------------------------------------
+    
+    private static void consumeEvents() {
+        try {
+            processEvents();
+        } catch (Throwable t) {
+            consumerFailure = t;
+            System.err.println("Extent report writer thread died - report events are dropped from now on");
+            t.printStackTrace();
+        } finally {
+            // Wake any producer blocked on a full queue and keep later ones from blocking
+            consumerStopped = true;
+            queue.clear();
+            capacity.release(Integer.MAX_VALUE / 2);
+        }
+    }
+    
+    private static void processEvents() {
+        Map<UUID, ExtentTest> nodes = new HashMap<>();
+        Map<UUID, ReportPart> scenarioParts = new HashMap<>();
+        List<ReportPart> retiredParts = new ArrayList<>();
+        long lastFlush = System.nanoTime();
+        
+        while (true) {
+            ReportEvent event = queue.poll();
+            if (event == null) {
+                // An unpark before this park makes it return at once, so no wakeup is lost
+                LockSupport.park(queue);
+                continue;
+            }
+            capacity.release();
+            
+            try {
+                if (event instanceof ScenarioStarted) {
+                    ScenarioStarted e = (ScenarioStarted) event;
+                    ReportPart part = partFor(e.featureName, retiredParts);
+                    ExtentTest feature = part.feature(e.featureName);
+                    part.runningScenarios++;
+                    scenarioParts.put(e.caseId, part);
+                    
+                    ExtentTest scenario = feature.createNode("Scenario: " + e.scenarioName);
+                    if (!e.tags.isEmpty()) {
+                        scenario.info("Tags: " + String.join(", ", e.tags));
+                        for (String tag : e.tags) {
+                            scenario.assignCategory(tag);
+                        }
+                    }
+                    nodes.put(e.caseId, scenario);
+                    
+                } else if (event instanceof StepStarted) {
+                    StepStarted e = (StepStarted) event;
+                    ExtentTest scenario = nodes.get(e.caseId);
+                    if (scenario != null) {
+                        nodes.put(e.stepId, scenario.createNode(e.text));
+                    }
+                    
+                } else if (event instanceof NodeLog) {
+                    NodeLog e = (NodeLog) event;
+                    ExtentTest node = nodes.get(e.nodeId);
+                    if (node != null) {
+                        node.log(e.status, e.message);
+                    }
+                    
+                } else if (event instanceof NodeFinished) {
+                    NodeFinished e = (NodeFinished) event;
+                    ExtentTest node = nodes.remove(e.nodeId);
+                    if (node != null) {
+                        logResult(node, e.result, e.scenarioName);
+                    }
+                    
+                    ReportPart part = scenarioParts.remove(e.nodeId);
+                    if (part != null && --part.runningScenarios == 0 && part != currentPart) {
+                        // Last scenario of a retired part - write it out and let it go
+                        part.finish();
+                        retiredParts.remove(part);
+                    }
+                    
+                } else if (event instanceof RunFinished) {
+                    writeRunMetrics(currentPart.extent);
+                    for (ReportPart part : retiredParts) {
+                        part.finish();
+                    }
+                    currentPart.finish();
+                    if (FEATURES_PER_PART > 0) {
+                        writePartIndex(currentPart.number);
+                    }
+                    return;
+                }
+                
+                if (FLUSH_INTERVAL_NANOS > 0 && System.nanoTime() - lastFlush > FLUSH_INTERVAL_NANOS) {
+                    currentPart.extent.flush();
+                    lastFlush = System.nanoTime();
+                }
+            } catch (Throwable t) {
+                // Also Errors from inside Extent - one bad event must not take the writer thread down
+                System.err.println("Error writing report event " + event.getClass().getSimpleName() + ": " + t);
+                t.printStackTrace();
+                if (event instanceof RunFinished) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Step latency, slowest locators and the Failure Index, added to the last
+     * report part - same output as AutoExtentReportPlugin
+     */
+    private static void writeRunMetrics(ExtentReports extent) {
+        try {
+            if (!latencyRecorder.isEmpty()) {
+                Path json = Paths.get(reportFolder + "step-latency.json");
+                Path prom = Paths.get(reportFolder + "step-latency.prom");
+                latencyRecorder.writeJson(json);
+                latencyRecorder.writePrometheus(prom);
+                latencyRecorder.addReportTest(extent, json, prom);
+            }
+            LocatorMetrics.addSink(new LocatorMetrics.ReportSink(extent, 20));
+            LocatorMetrics.publish();
+            if (!failureIndex.isEmpty()) {
+                failureIndex.addReportTest(extent);
+            }
+        } catch (Exception e) {
+            System.err.println("Error writing run metrics: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Pick the report part a new scenario goes into. A feature that is still
+     * running in a retired part stays there; otherwise the current part is
+     * used, rotated first if it already holds FEATURES_PER_PART features.
+     */
+    private static ReportPart partFor(String featureName, List<ReportPart> retiredParts) {
+        for (ReportPart part : retiredParts) {
+            if (part.runningScenarios > 0 && part.features.containsKey(featureName)) {
+                return part;
+            }
+        }
+        
+        if (FEATURES_PER_PART > 0
+                && !currentPart.features.containsKey(featureName)
+                && currentPart.features.size() >= FEATURES_PER_PART) {
+            ReportPart full = currentPart;
+            currentPart = new ReportPart(full.number + 1);
+            if (full.runningScenarios == 0) {
+                full.finish();
+            } else {
+                retiredParts.add(full);
+            }
+        }
+        return currentPart;
+    }
+    
+    private static void writePartIndex(int parts) throws IOException {
+        StringBuilder html = new StringBuilder("<html><head><title>Automation Test Report</title></head><body>");
+        html.append("<h2>Cucumber Test Report</h2><ul>");
+        for (int i = 1; i <= parts; i++) {
+            String name = "ExtentReport-part" + i + ".html";
+            html.append("<li><a href='").append(name).append("'>Part ").append(i).append("</a></li>");
+        }
+        html.append("</ul></body></html>");
+        Files.write(Paths.get(reportPath), html.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static void logResult(ExtentTest node, Result result, String scenarioName) {
+        Status status = mapStatus(result.getStatus());
+        String message = status.toString().toLowerCase();
+        
+        if (result.getDuration() != null) {
+            message += " (" + result.getDuration().toMillis() + " ms)";
+        }
+        
+        if (result.getError() != null) {
+            String errorMessage = result.getError().getMessage();
+            if (errorMessage != null && errorMessage.length() > 500) {
+                errorMessage = errorMessage.substring(0, 500) + "...";
+            }
+            node.log(status, message + " - " + errorMessage);
+            
+            if (scenarioName != null) {
+                // Stack trace is stored once per fingerprint in the Failure Index
+                FailureIndex.Failure failure = failureIndex.record(result.getError(), scenarioName);
+                node.fail("Failure <b>" + failure.getId() + "</b> (" + failure.getType() +
+                         ") - stack trace in Failure Index");
+            }
+        } else {
+            node.log(status, message);
+        }
+    }
+    
+    private static Status mapStatus(io.cucumber.plugin.event.Status cucumberStatus) {
+        if (cucumberStatus == null) {
+            return Status.INFO;
+        }
+        
+        switch (cucumberStatus) {
+            case PASSED:
+                return Status.PASS;
+            case FAILED:
+                return Status.FAIL;
+            case SKIPPED:
+                return Status.SKIP;
+            case PENDING:
+            case AMBIGUOUS:
+            case UNDEFINED:
+                return Status.WARNING;
+            default:
+                return Status.INFO;
+        }
+    }
+    
+    private static String getFeatureName(java.net.URI uri) {
+        if (uri == null || uri.getPath() == null) {
+            return "Unknown Feature";
+        }
+        String path = uri.getPath();
+        return path.substring(path.lastIndexOf('/') + 1).replace(".feature", "");
+    }
+    
+    /**
+     * One output file of the report. Without streaming mode there is only
+     * part 1, written to ExtentReport.html.
+     */
+    private static final class ReportPart {
+        final int number;
+        final String path;
+        final ExtentReports extent;
+        final Map<String, ExtentTest> features = new HashMap<>();
+        int runningScenarios;
+        
+        ReportPart(int number) {
+            this.number = number;
+            this.path = FEATURES_PER_PART > 0
+                ? reportFolder + "ExtentReport-part" + number + ".html"
+                : reportPath;
+            this.extent = createExtentReports(path);
+        }
+        
+        ExtentTest feature(String name) {
+            return features.computeIfAbsent(name, n -> {
+                ExtentTest featureTest = extent.createTest("Feature: " + n);
+                featureTest.assignCategory("Feature");
+                return featureTest;
+            });
+        }
+        
+        void finish() {
+            extent.flush();
+            features.clear();
+            if (FEATURES_PER_PART > 0) {
+                System.out.println("Report part written: " + path);
+            }
+        }
+    }
+    
+    // ---------------------------------------------------------------
+    // Event records - immutable, no Extent objects
+    // ---------------------------------------------------------------
+    
+    private abstract static class ReportEvent {
+    }
+    
+    private static final class ScenarioStarted extends ReportEvent {
+        final UUID caseId;
+        final String featureName;
+        final String scenarioName;
+        final List<String> tags;
+        
+        ScenarioStarted(UUID caseId, String featureName, String scenarioName, List<String> tags) {
+            this.caseId = caseId;
+            this.featureName = featureName;
+            this.scenarioName = scenarioName;
+            this.tags = tags;
+        }
+    }
+    
+    private static final class StepStarted extends ReportEvent {
+        final UUID caseId;
+        final UUID stepId;
+        final String text;
+        
+        StepStarted(UUID caseId, UUID stepId, String text) {
+            this.caseId = caseId;
+            this.stepId = stepId;
+            this.text = text;
+        }
+    }
+    
+    private static final class NodeLog extends ReportEvent {
+        final UUID nodeId;
+        final Status status;
+        final String message;
+        
+        NodeLog(UUID nodeId, Status status, String message) {
+            this.nodeId = nodeId;
+            this.status = status;
+            this.message = message;
+        }
+    }
+    
+    private static final class NodeFinished extends ReportEvent {
+        final UUID nodeId;
+        final Result result;
+        final String scenarioName;  // set for steps only
+        
+        NodeFinished(UUID nodeId, Result result, String scenarioName) {
+            this.nodeId = nodeId;
+            this.result = result;
+            this.scenarioName = scenarioName;
+        }
+    }
+    
+    private static final class RunFinished extends ReportEvent {
+        static final RunFinished INSTANCE = new RunFinished();
+    }
+}
@@ -4,12 +4,15 @@ import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.Status;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.JsonFormatter;
 import com.aventstack.extentreports.reporter.configuration.Theme;
 import io.cucumber.plugin.EventListener;  // Changed from ConcurrentEventListener
 import io.cucumber.plugin.event.*;
 
 import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -31,6 +34,17 @@ public class AutoExtentReportPlugin implements EventListener {  // Changed to Ev
     private static final String TIMESTAMP = new SimpleDateFormat("ddMMyyHHmmss").format(new Date());
     private static final String BASE_DIR = System.getProperty("user.dir") + File.separator + "Reports";
     private static String reportPath;
+    private static String reportFolder;
+    private static final StepLatencyRecorder latencyRecorder = new StepLatencyRecorder();
+    private static final FailureIndex failureIndex = new FailureIndex(2000);
+    
+    // Sharded mode for multi-JVM runs: every fork writes shards/shard-<forkId>.json
+    // into one shared folder and ExtentShardMerger builds the single HTML report.
+    //   -Dextent.report.dir=<shared folder>   (default Reports/Test-Reports-<TIMESTAMP>)
+    //   -Dextent.fork.id=<id>                 (default surefire.forkNumber, else the JVM pid)
+    //   -Dextent.shard=true                   (implied by extent.fork.id / surefire.forkNumber)
+    private static final String FORK_ID = resolveForkId();
+    private static final boolean SHARDED = Boolean.getBoolean("extent.shard") || FORK_ID != null;
     
     static {
         initializeReport();
@@ -39,22 +53,37 @@ public class AutoExtentReportPlugin implements EventListener {  // Changed to Ev
     private static void initializeReport() {
         try {
             // Create report folder
-            String reportFolder = BASE_DIR + File.separator + "Test-Reports-" + TIMESTAMP + File.separator;
-            reportPath = reportFolder + "ExtentReport.html";
+            reportFolder = System.getProperty("extent.report.dir",
+                BASE_DIR + File.separator + "Test-Reports-" + TIMESTAMP);
+            if (!reportFolder.endsWith(File.separator)) {
+                reportFolder += File.separator;
+            }
             
             Files.createDirectories(Paths.get(reportFolder));
             Files.createDirectories(Paths.get(reportFolder + "screenshots"));
-            
-            // Initialize ExtentReports
-            ExtentSparkReporter spark = new ExtentSparkReporter(reportPath);
-            spark.config().setTheme(Theme.STANDARD);
-            spark.config().setDocumentTitle("Automation Test Report");
-            spark.config().setReportName("Cucumber Test Report");
-            spark.config().setTimeStampFormat("dd-MM-yyyy HH:mm:ss");
-            spark.config().setTimelineEnabled(false);  // Disable timeline for cleaner look
+            DirectExtentManager.setScreenshotFolder(reportFolder + "screenshots");
             
             extent = new ExtentReports();
-            extent.attachReporter(spark);
+            
+            if (SHARDED) {
+                // Compact JSON shard per fork - merged into one HTML by ExtentShardMerger
+                String forkId = FORK_ID != null ? FORK_ID : currentPid();
+                Files.createDirectories(Paths.get(reportFolder + "shards"));
+                reportPath = reportFolder + "shards" + File.separator + "shard-" + forkId + ".json";
+                extent.attachReporter(new JsonFormatter(reportPath));
+            } else {
+                reportPath = reportFolder + "ExtentReport.html";
+                
+                // Initialize ExtentReports
+                ExtentSparkReporter spark = new ExtentSparkReporter(reportPath);
+                spark.config().setTheme(Theme.STANDARD);
+                spark.config().setDocumentTitle("Automation Test Report");
+                spark.config().setReportName("Cucumber Test Report");
+                spark.config().setTimeStampFormat("dd-MM-yyyy HH:mm:ss");
+                spark.config().setTimelineEnabled(false);  // Disable timeline for cleaner look
+                
+                extent.attachReporter(spark);
+            }
             extent.setSystemInfo("Platform", "Android");
             extent.setSystemInfo("Environment", "QA");
             extent.setSystemInfo("Framework", "Cucumber + Appium");
@@ -63,6 +92,11 @@ public class AutoExtentReportPlugin implements EventListener {  // Changed to Ev
             // Make extent accessible to DirectExtentManager
             DirectExtentManager.setExtentReports(extent);
             
+            // Page object locator timings, published at run end
+            String metricsSuffix = SHARDED ? "-" + (FORK_ID != null ? FORK_ID : currentPid()) : "";
+            LocatorMetrics.addSink(new LocatorMetrics.JsonFileSink(Paths.get(reportFolder + "locator-latency" + metricsSuffix + ".json")));
+            LocatorMetrics.addSink(new LocatorMetrics.ReportSink(extent, 20));
+            
             System.out.println("==========================================");
             System.out.println("AutoExtentReportPlugin Initialized");
             System.out.println("Report: " + reportPath);
@@ -168,9 +202,16 @@ public class AutoExtentReportPlugin implements EventListener {  // Changed to Ev
     private void handleTestStepFinished(TestStepFinished event) {
         try {
             if (event.getTestStep() instanceof PickleStepTestStep) {
+                Result result = event.getResult();
+                if (result.getDuration() != null) {
+                    PickleStepTestStep pickleStep = (PickleStepTestStep) event.getTestStep();
+                    // Key by step definition pattern so parameterised steps share one histogram
+                    String key = pickleStep.getPattern() != null ? pickleStep.getPattern() : pickleStep.getStep().getText();
+                    latencyRecorder.recordStep(key, result.getDuration().toNanos());
+                }
+                
                 ExtentTest step = stepTest.get();
                 if (step != null) {
-                    Result result = event.getResult();
                     Status status = mapStatus(result.getStatus());
                     
                     if (result.getError() != null) {
@@ -181,12 +222,10 @@ public class AutoExtentReportPlugin implements EventListener {  // Changed to Ev
                         }
                         step.log(status, "Step failed: " + errorMessage);
                         
-                        // Add stack trace in a collapsible section
-                        String stackTrace = getStackTrace(result.getError());
-                        if (stackTrace != null && !stackTrace.isEmpty()) {
-                            step.fail("<details><summary>Stack Trace</summary><pre>" + 
-                                     stackTrace + "</pre></details>");
-                        }
+                        // Stack trace is stored once per fingerprint in the Failure Index
+                        FailureIndex.Failure failure = failureIndex.record(result.getError(), event.getTestCase().getName());
+                        step.fail("Failure <b>" + failure.getId() + "</b> (" + failure.getType() + 
+                                 ") - stack trace in Failure Index");
                     } else {
                         String message = "Step " + status.toString().toLowerCase();
                         
@@ -208,6 +247,10 @@ public class AutoExtentReportPlugin implements EventListener {  // Changed to Ev
     
     private void handleTestCaseFinished(TestCaseFinished event) {
         try {
+            if (event.getResult().getDuration() != null) {
+                latencyRecorder.recordScenario(event.getResult().getDuration().toNanos());
+            }
+            
             ExtentTest scenario = scenarioTest.get();
             if (scenario != null) {
                 Result result = event.getResult();
@@ -242,6 +285,10 @@ public class AutoExtentReportPlugin implements EventListener {  // Changed to Ev
     
     private void handleTestRunFinished(TestRunFinished event) {
         try {
+            writeLatencyMetrics();
+            LocatorMetrics.publish();
+            writeFailureIndex();
+            DirectExtentManager.awaitPendingScreenshots(60);
             extent.flush();
             System.out.println("==========================================");
             System.out.println("Report Generated Successfully!");
@@ -253,6 +300,64 @@ public class AutoExtentReportPlugin implements EventListener {  // Changed to Ev
         }
     }
     
+    /**
+     * Step/scenario latency percentiles as JSON + Prometheus text, plus a
+     * slowest-steps table in the report
+     */
+    private void writeLatencyMetrics() {
+        if (latencyRecorder.isEmpty()) {
+            return;
+        }
+        try {
+            String suffix = SHARDED ? "-" + (FORK_ID != null ? FORK_ID : currentPid()) : "";
+            Path json = Paths.get(reportFolder + "step-latency" + suffix + ".json");
+            Path prom = Paths.get(reportFolder + "step-latency" + suffix + ".prom");
+            latencyRecorder.writeJson(json);
+            latencyRecorder.writePrometheus(prom);
+            latencyRecorder.addReportTest(extent, json, prom);
+            
+            System.out.println("Step latency metrics: " + json);
+        } catch (Exception e) {
+            System.err.println("Error writing step latency metrics: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * One node per unique failure with its occurrence count, affected
+     * scenarios and the stack trace rendered once. Sharded runs also write
+     * failure-index-<fork>.json for ExtentShardMerger.
+     */
+    private void writeFailureIndex() {
+        if (failureIndex.isEmpty()) {
+            return;
+        }
+        try {
+            failureIndex.addReportTest(extent);
+            if (SHARDED) {
+                String suffix = "-" + (FORK_ID != null ? FORK_ID : currentPid());
+                failureIndex.writeJson(Paths.get(reportFolder + "failure-index" + suffix + ".json"));
+            }
+        } catch (Exception e) {
+            System.err.println("Error writing failure index: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    private static String resolveForkId() {
+        String forkId = System.getProperty("extent.fork.id");
+        if (forkId == null || forkId.isEmpty()) {
+            forkId = System.getProperty("surefire.forkNumber");
+        }
+        return forkId == null || forkId.isEmpty() ? null : forkId;
+    }
+    
+    private static String currentPid() {
+        // RuntimeMXBean name is "<pid>@<host>"
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        return name.contains("@") ? name.substring(0, name.indexOf('@')) : name;
+    }
+    
     private Status mapStatus(io.cucumber.plugin.event.Status cucumberStatus) {
         if (cucumberStatus == null) {
             return Status.INFO;
@@ -292,26 +397,4 @@ public class AutoExtentReportPlugin implements EventListener {  // Changed to Ev
             return "Unknown Feature";
         }
     }
-    
-    private String getStackTrace(Throwable throwable) {
-        if (throwable == null) {
-            return "";
-        }
-        
-        try {
-            java.io.StringWriter sw = new java.io.StringWriter();
-            java.io.PrintWriter pw = new java.io.PrintWriter(sw);
-            throwable.printStackTrace(pw);
-            String stackTrace = sw.toString();
-            
-            // Limit stack trace length
-            if (stackTrace.length() > 2000) {
-                stackTrace = stackTrace.substring(0, 2000) + "\n... (truncated)";
-            }
-            
-            return stackTrace;
-        } catch (Exception e) {
-            return "Unable to get stack trace";
-        }
-    }
 }
@@ -0,0 +1,347 @@
+package com.example.reporting;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.reporting.ReportFormat.escapeHtml;
+import static com.example.reporting.ReportFormat.escapeJson;
+
+/**
+ * Deduplicated index of step failures.
+ * Failures are fingerprinted by exception type plus the top non-framework
+ * frames of the root cause (messages are ignored - they usually carry
+ * ids/timestamps), so
+ * a mass failure with one root cause renders its stack trace once and every
+ * failed step just references the fingerprint. Fingerprints do not depend on
+ * the JVM, so indexes written per fork with writeJson merge back into one.
+ */
+public class FailureIndex {
+    
+    private static final int FINGERPRINT_FRAMES = 5;
+    private static final int MAX_SCENARIOS_PER_FAILURE = 50;
+    private static final String[] FRAMEWORK_PACKAGES = {
+        "java.", "javax.", "jdk.", "sun.", "com.sun.",
+        "org.openqa.", "io.appium.", "org.junit.", "org.testng.", "io.cucumber."
+    };
+    
+    private final Map<String, Failure> failures = new ConcurrentHashMap<>();
+    private final int traceLimit;
+    
+    public FailureIndex(int traceLimit) {
+        this.traceLimit = traceLimit;
+    }
+    
+    /**
+     * Add an occurrence of the throwable and return its entry.
+     * The stack trace is only rendered the first time a fingerprint is seen.
+     */
+    public Failure record(Throwable throwable, String scenarioName) {
+        String signature = signature(throwable);
+        Failure failure = failures.computeIfAbsent(signature,
+            k -> new Failure(fingerprintId(k), throwable.getClass().getName(), throwable.getMessage(),
+                renderTrace(throwable, traceLimit)));
+        failure.occurrences.incrementAndGet();
+        synchronized (failure.scenarios) {
+            if (failure.scenarios.size() < MAX_SCENARIOS_PER_FAILURE) {
+                failure.scenarios.add(scenarioName);
+            }
+        }
+        return failure;
+    }
+    
+    /**
+     * Add the failures of another index (e.g. one read back from a fork's JSON)
+     */
+    public void merge(FailureIndex other) {
+        for (Map.Entry<String, Failure> e : other.failures.entrySet()) {
+            Failure theirs = e.getValue();
+            Failure failure = failures.computeIfAbsent(e.getKey(),
+                k -> new Failure(theirs.id, theirs.type, theirs.message, theirs.trace));
+            failure.occurrences.addAndGet(theirs.getOccurrences());
+            List<String> scenarios = theirs.getScenarios();
+            synchronized (failure.scenarios) {
+                for (String scenario : scenarios) {
+                    if (failure.scenarios.size() >= MAX_SCENARIOS_PER_FAILURE) {
+                        break;
+                    }
+                    if (!failure.scenarios.contains(scenario)) {
+                        failure.scenarios.add(scenario);
+                    }
+                }
+            }
+        }
+    }
+    
+    public boolean isEmpty() {
+        return failures.isEmpty();
+    }
+    
+    public int size() {
+        return failures.size();
+    }
+    
+    /**
+     * Unique failures, most frequent first
+     */
+    public List<Failure> getFailures() {
+        List<Failure> sorted = new ArrayList<>(failures.values());
+        sorted.sort(Comparator.comparingInt(Failure::getOccurrences).reversed());
+        return sorted;
+    }
+    
+    /**
+     * One node per unique failure with its occurrence count, affected
+     * scenarios and the stack trace rendered once
+     */
+    public void addReportTest(ExtentReports extent) {
+        ExtentTest index = extent.createTest("Failure Index")
+            .assignCategory("Failures");
+        index.info(size() + " unique failure(s)");
+        
+        for (Failure failure : getFailures()) {
+            ExtentTest node = index.createNode(failure.getId() + " - " + failure.getType() + 
+                                               " (" + failure.getOccurrences() + "x)");
+            if (failure.getMessage() != null) {
+                String message = failure.getMessage();
+                if (message.length() > 500) {
+                    message = message.substring(0, 500) + "...";
+                }
+                node.info(escapeHtml(message));
+            }
+            node.info("Scenarios: " + escapeHtml(String.join(", ", failure.getScenarios())));
+            node.fail("<details><summary>Stack Trace</summary><pre>" + 
+                     escapeHtml(failure.getTrace()) + "</pre></details>");
+        }
+    }
+    
+    /**
+     * Every failure with its signature, so forks can be merged by fingerprint
+     */
+    public void writeJson(Path file) throws IOException {
+        StringBuilder json = new StringBuilder("{\n  \"failures\": [");
+        boolean first = true;
+        for (Map.Entry<String, Failure> e : failures.entrySet()) {
+            Failure failure = e.getValue();
+            json.append(first ? "\n" : ",\n");
+            json.append("    {\"signature\": \"").append(escapeJson(e.getKey())).append("\"")
+                .append(", \"id\": \"").append(failure.id).append("\"")
+                .append(", \"type\": \"").append(escapeJson(failure.type)).append("\"")
+                .append(", \"message\": ");
+            if (failure.message == null) {
+                json.append("null");
+            } else {
+                json.append("\"").append(escapeJson(failure.message)).append("\"");
+            }
+            json.append(", \"occurrences\": ").append(failure.getOccurrences())
+                .append(", \"scenarios\": [");
+            List<String> scenarios = failure.getScenarios();
+            for (int i = 0; i < scenarios.size(); i++) {
+                json.append(i == 0 ? "\"" : ", \"").append(escapeJson(scenarios.get(i))).append("\"");
+            }
+            json.append("], \"trace\": \"").append(escapeJson(failure.trace)).append("\"}");
+            first = false;
+        }
+        json.append("\n  ]\n}\n");
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Index rebuilt from the JSON written by writeJson
+     */
+    public static FailureIndex fromJson(JsonObject json, int traceLimit) {
+        FailureIndex index = new FailureIndex(traceLimit);
+        for (JsonElement element : json.getAsJsonArray("failures")) {
+            JsonObject entry = element.getAsJsonObject();
+            JsonElement message = entry.get("message");
+            Failure failure = new Failure(entry.get("id").getAsString(), entry.get("type").getAsString(),
+                message == null || message.isJsonNull() ? null : message.getAsString(),
+                entry.get("trace").getAsString());
+            failure.occurrences.set(entry.get("occurrences").getAsInt());
+            for (JsonElement scenario : entry.getAsJsonArray("scenarios")) {
+                failure.scenarios.add(scenario.getAsString());
+            }
+            index.failures.put(entry.get("signature").getAsString(), failure);
+        }
+        return index;
+    }
+    
+    private static String signature(Throwable throwable) {
+        Throwable root = rootCause(throwable);
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(throwable.getClass().getName());
+        if (root != throwable) {
+            sb.append('|').append(root.getClass().getName());
+        }
+        // Driver/JDK frames on top are the same for every failure of a kind
+        // (e.g. a NoSuchElementException from any locator), so key on the
+        // first frames of our own code - page objects and step definitions
+        StackTraceElement[] frames = root.getStackTrace();
+        int taken = appendFrames(sb, frames, true);
+        if (taken == 0) {
+            appendFrames(sb, frames, false);
+        }
+        return sb.toString();
+    }
+    
+    private static int appendFrames(StringBuilder sb, StackTraceElement[] frames, boolean skipFramework) {
+        int taken = 0;
+        for (int i = 0; i < frames.length && taken < FINGERPRINT_FRAMES; i++) {
+            if (skipFramework && isFrameworkFrame(frames[i])) {
+                continue;
+            }
+            sb.append('|').append(frames[i].getClassName())
+              .append('.').append(frames[i].getMethodName())
+              .append(':').append(frames[i].getLineNumber());
+            taken++;
+        }
+        return taken;
+    }
+    
+    private static boolean isFrameworkFrame(StackTraceElement frame) {
+        String className = frame.getClassName();
+        for (String prefix : FRAMEWORK_PACKAGES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static Throwable rootCause(Throwable throwable) {
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Throwable root = throwable;
+        while (root.getCause() != null && seen.add(root)) {
+            root = root.getCause();
+        }
+        return root;
+    }
+    
+    // FNV-1a 64 over the signature, shortened for display
+    private static String fingerprintId(String signature) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < signature.length(); i++) {
+            hash ^= signature.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return "F-" + String.format("%08x", hash >>> 32);
+    }
+    
+    /**
+     * Same layout as printStackTrace (causes included, common frames elided),
+     * but stops as soon as maxChars is reached instead of rendering the
+     * whole trace and cutting it afterwards.
+     */
+    public static String renderTrace(Throwable throwable, int maxChars) {
+        StringBuilder sb = new StringBuilder(Math.min(maxChars + 32, 4096));
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        
+        StackTraceElement[] enclosing = null;
+        Throwable current = throwable;
+        boolean first = true;
+        while (current != null && seen.add(current)) {
+            if (!appendLine(sb, first ? current.toString() : "Caused by: " + current, maxChars)) {
+                return truncated(sb);
+            }
+            
+            StackTraceElement[] frames = current.getStackTrace();
+            int inCommon = 0;
+            if (enclosing != null) {
+                int m = frames.length - 1;
+                int n = enclosing.length - 1;
+                while (m >= 0 && n >= 0 && frames[m].equals(enclosing[n])) {
+                    m--;
+                    n--;
+                }
+                inCommon = frames.length - 1 - m;
+            }
+            for (int i = 0; i < frames.length - inCommon; i++) {
+                if (!appendLine(sb, "\tat " + frames[i], maxChars)) {
+                    return truncated(sb);
+                }
+            }
+            if (inCommon != 0 && !appendLine(sb, "\t... " + inCommon + " more", maxChars)) {
+                return truncated(sb);
+            }
+            
+            enclosing = frames;
+            current = current.getCause();
+            first = false;
+        }
+        return sb.toString();
+    }
+    
+    private static boolean appendLine(StringBuilder sb, String line, int maxChars) {
+        int remaining = maxChars - sb.length();
+        if (line.length() + 1 > remaining) {
+            sb.append(line, 0, Math.max(0, remaining));
+            return false;
+        }
+        sb.append(line).append('\n');
+        return true;
+    }
+    
+    private static String truncated(StringBuilder sb) {
+        return sb.append("\n... (truncated)").toString();
+    }
+    
+    /**
+     * One unique failure and where it occurred
+     */
+    public static class Failure {
+        private final String id;
+        private final String type;
+        private final String message;
+        private final String trace;
+        private final AtomicInteger occurrences = new AtomicInteger();
+        private final List<String> scenarios = new ArrayList<>();
+        
+        Failure(String id, String type, String message, String trace) {
+            this.id = id;
+            this.type = type;
+            this.message = message;
+            this.trace = trace;
+        }
+        
+        public String getId() {
+            return id;
+        }
+        
+        public String getType() {
+            return type;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        public String getTrace() {
+            return trace;
+        }
+        
+        public int getOccurrences() {
+            return occurrences.get();
+        }
+        
+        public List<String> getScenarios() {
+            synchronized (scenarios) {
+                return new ArrayList<>(scenarios);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.reporting;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small HdrHistogram-style latency histogram.
+ * Values are bucketed log-linearly: 32 linear sub-buckets per power of two,
+ * so every recorded value is kept to within ~3% precision over the full
+ * long range. record() is lock-free and allocation-free, safe to call from
+ * any number of threads.
+ * Histograms from separate JVMs are combined bucket by bucket: write each
+ * with appendJson, read it back with fromJson and merge() them, so the
+ * percentiles of the combined run keep the same precision.
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong(0);
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.increment();
+        sum.add(value);
+        updateMax(value);
+        updateMin(value);
+    }
+    
+    /**
+     * Add every bucket of other to this histogram. Values recorded into
+     * other while the merge runs may or may not be included.
+     */
+    public void merge(LatencyHistogram other) {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+                count += c;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        totalCount.add(count);
+        sum.add(other.getSum());
+        updateMax(other.getMax());
+        updateMin(other.getMin());
+    }
+    
+    private void updateMax(long value) {
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+    
+    private void updateMin(long value) {
+        long current;
+        while (value < (current = min.get()) && !min.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+    
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift);  // in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        return (shift + 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+    
+    // Highest value that falls into the bucket
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+    
+    /**
+     * Value at the given percentile (0-100), accurate to the bucket width
+     * and never above the recorded maximum.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+    
+    public long getCount() {
+        return totalCount.sum();
+    }
+    
+    public long getSum() {
+        return sum.sum();
+    }
+    
+    public long getMax() {
+        return max.get();
+    }
+    
+    public long getMin() {
+        return getCount() == 0 ? 0 : min.get();
+    }
+    
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0.0 : (double) getSum() / count;
+    }
+    
+    /**
+     * Raw histogram in the recorded unit, only the non-empty buckets as
+     * [index, count] pairs:
+     * {"subBucketBits": 5, "sum": 1234, "min": 3, "max": 900, "buckets": [[3, 1], ...]}
+     */
+    public void appendJson(StringBuilder json) {
+        json.append("{\"subBucketBits\": ").append(SUB_BUCKET_BITS)
+            .append(", \"sum\": ").append(getSum())
+            .append(", \"min\": ").append(getMin())
+            .append(", \"max\": ").append(getMax())
+            .append(", \"buckets\": [");
+        boolean first = true;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = counts.get(i);
+            if (c != 0) {
+                json.append(first ? "[" : ", [").append(i).append(", ").append(c).append("]");
+                first = false;
+            }
+        }
+        json.append("]}");
+    }
+    
+    /**
+     * Histogram written by appendJson
+     */
+    public static LatencyHistogram fromJson(JsonObject json) {
+        int subBucketBits = json.get("subBucketBits").getAsInt();
+        if (subBucketBits != SUB_BUCKET_BITS) {
+            throw new IllegalArgumentException("Histogram has " + subBucketBits + 
+                                               " sub-bucket bits, expected " + SUB_BUCKET_BITS);
+        }
+        LatencyHistogram h = new LatencyHistogram();
+        long count = 0;
+        for (JsonElement bucket : json.getAsJsonArray("buckets")) {
+            JsonArray pair = bucket.getAsJsonArray();
+            int index = pair.get(0).getAsInt();
+            long c = pair.get(1).getAsLong();
+            if (index < 0 || index >= BUCKET_COUNT || c < 0) {
+                throw new IllegalArgumentException("Invalid histogram bucket " + pair);
+            }
+            h.counts.addAndGet(index, c);
+            count += c;
+        }
+        if (count > 0) {
+            h.totalCount.add(count);
+            h.sum.add(json.get("sum").getAsLong());
+            h.max.set(json.get("max").getAsLong());
+            h.min.set(json.get("min").getAsLong());
+        }
+        return h;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.reporting;
+
+import java.util.Locale;
+
+/**
+ * Formatting shared by the metrics writers (StepLatencyRecorder,
+ * LocatorMetrics, FailureIndex): microsecond values as milliseconds, JSON
+ * and HTML escaping, and the metric tables shown in the Extent report.
+ */
+public final class ReportFormat {
+    
+    private ReportFormat() {
+    }
+    
+    public static String ms(long micros) {
+        return String.format(Locale.ROOT, "%.3f", micros / 1_000.0);
+    }
+    
+    /**
+     * Contents of a JSON string literal, control characters included
+     */
+    public static String escapeJson(String str) {
+        StringBuilder sb = new StringBuilder(str.length() + 16);
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.toString();
+    }
+    
+    public static String escapeHtml(String str) {
+        return str.replace("&", "&amp;")
+                 .replace("<", "&lt;")
+                 .replace(">", "&gt;");
+    }
+    
+    /**
+     * Report table with a header row; every cell is HTML-escaped
+     */
+    public static final class HtmlTable {
+        private final StringBuilder html = new StringBuilder("<table class='table table-sm'>");
+        
+        public HtmlTable(String... headers) {
+            html.append("<thead><tr>");
+            for (String header : headers) {
+                html.append("<th>").append(escapeHtml(header)).append("</th>");
+            }
+            html.append("</tr></thead><tbody>");
+        }
+        
+        public HtmlTable row(Object... cells) {
+            html.append("<tr>");
+            for (Object cell : cells) {
+                html.append("<td>").append(escapeHtml(String.valueOf(cell))).append("</td>");
+            }
+            html.append("</tr>");
+            return this;
+        }
+        
+        @Override
+        public String toString() {
+            return html + "</tbody></table>";
+        }
+    }
+}
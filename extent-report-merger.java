@@ -0,0 +1,256 @@
+package com.example.reporting;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.configuration.Theme;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges the JSON shards written by AutoExtentReportPlugin in sharded mode
+ * (one per JVM fork or machine) into a single ExtentReport.html.
+ *
+ * Usage:
+ *   java com.example.reporting.ExtentShardMerger <report folder> [output html]
+ *
+ * The report folder is the shared -Dextent.report.dir; shards are read from
+ * its shards/ subfolder. Shards copied in from other machines just need to be
+ * dropped into the same folder before merging.
+ *
+ * Features that ran on several forks become one "Feature: X" node holding
+ * every fork's scenarios. The per-fork summary tests are dropped and built
+ * once from the merged data instead: step and locator latency from the
+ * step-latency-<fork>.json / locator-latency-<fork>.json histograms (written
+ * back out as step-latency.json, step-latency.prom and locator-latency.json),
+ * failures from failure-index-<fork>.json.
+ */
+public class ExtentShardMerger {
+    
+    // Built per fork by AutoExtentReportPlugin, rebuilt here from the merged data
+    private static final Set<String> SUMMARY_TESTS = new HashSet<>(
+        Arrays.asList("Step Latency Summary", "Slowest Locators", "Failure Index"));
+    private static final String FEATURE_PREFIX = "Feature: ";
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ExtentShardMerger <report folder> [output html]");
+            System.exit(1);
+        }
+        
+        String reportFolder = args[0];
+        String output = args.length > 1 ? args[1] : reportFolder + File.separator + "ExtentReport.html";
+        
+        int merged = merge(Paths.get(reportFolder, "shards"), output);
+        System.out.println("==========================================");
+        System.out.println("Merged " + merged + " report shards");
+        System.out.println("Location: " + output);
+        System.out.println("==========================================");
+    }
+    
+    /**
+     * Merge every shard-*.json in shardFolder into one HTML report.
+     * Returns the number of shards merged.
+     */
+    public static int merge(Path shardFolder, String outputHtml) throws IOException {
+        List<Path> shards = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(shardFolder, "shard-*.json")) {
+            for (Path shard : stream) {
+                shards.add(shard);
+            }
+        }
+        
+        if (shards.isEmpty()) {
+            throw new IOException("No report shards found in " + shardFolder);
+        }
+        shards.sort(null);
+        
+        ExtentSparkReporter spark = new ExtentSparkReporter(outputHtml);
+        spark.config().setTheme(Theme.STANDARD);
+        spark.config().setDocumentTitle("Automation Test Report");
+        spark.config().setReportName("Cucumber Test Report");
+        spark.config().setTimeStampFormat("dd-MM-yyyy HH:mm:ss");
+        spark.config().setTimelineEnabled(false);
+        
+        ExtentReports extent = new ExtentReports();
+        extent.attachReporter(spark);
+        extent.setSystemInfo("Platform", "Android");
+        extent.setSystemInfo("Environment", "QA");
+        extent.setSystemInfo("Framework", "Cucumber + Appium");
+        extent.setSystemInfo("Shards", String.valueOf(shards.size()));
+        extent.setSystemInfo("Merged At", new SimpleDateFormat("dd-MM-yyyy HH:mm:ss").format(new Date()));
+        
+        // One archive with the features combined, loaded in a single pass
+        Path combined = Files.createTempFile(shardFolder, "merged-", ".json");
+        try {
+            Files.write(combined, combineShards(shards).toString().getBytes(StandardCharsets.UTF_8));
+            extent.createDomainFromJsonArchive(combined.toString());
+        } finally {
+            Files.deleteIfExists(combined);
+        }
+        
+        Path reportFolder = shardFolder.toAbsolutePath().getParent();
+        mergeStepLatency(reportFolder, extent);
+        mergeLocatorLatency(reportFolder, extent);
+        mergeFailureIndex(reportFolder, extent);
+        
+        extent.flush();
+        return shards.size();
+    }
+    
+    /**
+     * Top-level tests of every shard in shard order, with same-named features
+     * folded into the first one and the per-fork summary tests left out
+     */
+    private static JsonArray combineShards(List<Path> shards) throws IOException {
+        Map<String, JsonObject> features = new LinkedHashMap<>();
+        JsonArray tests = new JsonArray();
+        for (Path shard : shards) {
+            System.out.println("Merging shard: " + shard.getFileName());
+            for (JsonElement element : readJson(shard).getAsJsonArray()) {
+                JsonObject test = element.getAsJsonObject();
+                String name = test.has("name") ? test.get("name").getAsString() : "";
+                if (SUMMARY_TESTS.contains(name)) {
+                    continue;
+                }
+                if (!name.startsWith(FEATURE_PREFIX)) {
+                    tests.add(test);
+                    continue;
+                }
+                JsonObject feature = features.get(name);
+                if (feature == null) {
+                    features.put(name, test);
+                    tests.add(test);
+                } else {
+                    mergeFeature(feature, test);
+                }
+            }
+        }
+        return tests;
+    }
+    
+    private static void mergeFeature(JsonObject feature, JsonObject other) {
+        if (other.has("children")) {
+            if (!feature.has("children")) {
+                feature.add("children", new JsonArray());
+            }
+            feature.getAsJsonArray("children").addAll(other.getAsJsonArray("children"));
+        }
+        // Span from the first fork's start to the last fork's end
+        if (compareDates(other.get("startTime"), feature.get("startTime")) < 0) {
+            feature.add("startTime", other.get("startTime"));
+        }
+        if (compareDates(other.get("endTime"), feature.get("endTime")) > 0) {
+            feature.add("endTime", other.get("endTime"));
+        }
+    }
+    
+    // Dates are in Gson's default format, same as JsonFormatter wrote them; 0 when either is unreadable
+    private static int compareDates(JsonElement a, JsonElement b) {
+        if (a == null || b == null || a.isJsonNull() || b.isJsonNull()) {
+            return 0;
+        }
+        try {
+            Gson gson = new Gson();
+            return gson.fromJson(a, Date.class).compareTo(gson.fromJson(b, Date.class));
+        } catch (JsonParseException e) {
+            return 0;
+        }
+    }
+    
+    private static void mergeStepLatency(Path reportFolder, ExtentReports extent) throws IOException {
+        List<Path> files = forkFiles(reportFolder, "step-latency-*.json");
+        if (files.isEmpty()) {
+            return;
+        }
+        StepLatencyRecorder merged = new StepLatencyRecorder();
+        for (Path file : files) {
+            merged.merge(StepLatencyRecorder.fromJson(readJson(file).getAsJsonObject()));
+        }
+        if (merged.isEmpty()) {
+            return;
+        }
+        Path json = reportFolder.resolve("step-latency.json");
+        Path prom = reportFolder.resolve("step-latency.prom");
+        merged.writeJson(json);
+        merged.writePrometheus(prom);
+        merged.addReportTest(extent, json, prom);
+    }
+    
+    private static void mergeLocatorLatency(Path reportFolder, ExtentReports extent) throws IOException {
+        List<Path> files = forkFiles(reportFolder, "locator-latency-*.json");
+        if (files.isEmpty()) {
+            return;
+        }
+        Map<String, LocatorMetrics.LocatorStats> merged = new LinkedHashMap<>();
+        for (Path file : files) {
+            for (JsonElement element : readJson(file).getAsJsonObject().getAsJsonArray("locators")) {
+                LocatorMetrics.LocatorStats stats = LocatorMetrics.LocatorStats.fromJson(element.getAsJsonObject());
+                LocatorMetrics.LocatorStats existing = merged.putIfAbsent(stats.getName(), stats);
+                if (existing != null) {
+                    existing.merge(stats);
+                }
+            }
+        }
+        if (merged.isEmpty()) {
+            return;
+        }
+        List<LocatorMetrics.LocatorStats> slowestFirst = LocatorMetrics.slowestFirst(merged.values());
+        new LocatorMetrics.JsonFileSink(reportFolder.resolve("locator-latency.json")).publish(slowestFirst);
+        new LocatorMetrics.ReportSink(extent, 20).publish(slowestFirst);
+    }
+    
+    private static void mergeFailureIndex(Path reportFolder, ExtentReports extent) throws IOException {
+        List<Path> files = forkFiles(reportFolder, "failure-index-*.json");
+        if (files.isEmpty()) {
+            return;
+        }
+        FailureIndex merged = new FailureIndex(2000);
+        for (Path file : files) {
+            merged.merge(FailureIndex.fromJson(readJson(file).getAsJsonObject(), 2000));
+        }
+        if (!merged.isEmpty()) {
+            merged.addReportTest(extent);
+        }
+    }
+    
+    private static List<Path> forkFiles(Path folder, String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, glob)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+    
+    private static JsonElement readJson(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return JsonParser.parseReader(reader);
+        } catch (JsonParseException e) {
+            throw new IOException("Invalid JSON in " + file + ": " + e.getMessage(), e);
+        }
+    }
+}
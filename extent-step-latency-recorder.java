@@ -0,0 +1,175 @@
+package com.example.reporting;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.example.reporting.ReportFormat.HtmlTable;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.reporting.ReportFormat.escapeJson;
+import static com.example.reporting.ReportFormat.ms;
+
+/**
+ * Collects step durations (keyed by step definition pattern) and scenario
+ * durations into LatencyHistograms, and writes them out at run end as JSON,
+ * Prometheus text and an HTML slowest-steps table for the report.
+ * Durations are recorded in microseconds. The JSON carries the raw
+ * histograms too, so recorders from several forks can be merged back
+ * together with merge().
+ */
+public class StepLatencyRecorder {
+    
+    private final Map<String, LatencyHistogram> steps = new ConcurrentHashMap<>();
+    private final LatencyHistogram scenarios = new LatencyHistogram();
+    
+    public void recordStep(String stepPattern, long durationNanos) {
+        // computeIfAbsent only allocates the first time a pattern is seen
+        steps.computeIfAbsent(stepPattern, k -> new LatencyHistogram()).record(durationNanos / 1_000);
+    }
+    
+    public void recordScenario(long durationNanos) {
+        scenarios.record(durationNanos / 1_000);
+    }
+    
+    /**
+     * Add another recorder's histograms (e.g. one read back from a fork's JSON)
+     */
+    public void merge(StepLatencyRecorder other) {
+        for (Map.Entry<String, LatencyHistogram> e : other.steps.entrySet()) {
+            steps.computeIfAbsent(e.getKey(), k -> new LatencyHistogram()).merge(e.getValue());
+        }
+        scenarios.merge(other.scenarios);
+    }
+    
+    /**
+     * Recorder rebuilt from the JSON written by writeJson
+     */
+    public static StepLatencyRecorder fromJson(JsonObject json) {
+        StepLatencyRecorder recorder = new StepLatencyRecorder();
+        recorder.scenarios.merge(LatencyHistogram.fromJson(json.getAsJsonObject("scenarios").getAsJsonObject("histogram")));
+        for (JsonElement step : json.getAsJsonArray("steps")) {
+            JsonObject entry = step.getAsJsonObject();
+            recorder.steps.put(entry.get("step").getAsString(),
+                LatencyHistogram.fromJson(entry.getAsJsonObject("stats").getAsJsonObject("histogram")));
+        }
+        return recorder;
+    }
+    
+    public boolean isEmpty() {
+        return steps.isEmpty() && scenarios.getCount() == 0;
+    }
+    
+    /**
+     * Steps ordered by total time spent - the ones dominating suite wall time first
+     */
+    public List<Map.Entry<String, LatencyHistogram>> slowestSteps(int limit) {
+        List<Map.Entry<String, LatencyHistogram>> sorted = new ArrayList<>(steps.entrySet());
+        sorted.sort(Comparator.comparingLong((Map.Entry<String, LatencyHistogram> e) -> e.getValue().getSum()).reversed());
+        return sorted.size() > limit ? sorted.subList(0, limit) : sorted;
+    }
+    
+    public void writeJson(Path file) throws IOException {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"unit\": \"ms\",\n");
+        json.append("  \"histogramUnit\": \"us\",\n");
+        json.append("  \"scenarios\": ");
+        appendJsonStats(json, scenarios);
+        json.append(",\n  \"steps\": [");
+        
+        List<Map.Entry<String, LatencyHistogram>> sorted = slowestSteps(Integer.MAX_VALUE);
+        for (int i = 0; i < sorted.size(); i++) {
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"step\": \"").append(escapeJson(sorted.get(i).getKey())).append("\", \"stats\": ");
+            appendJsonStats(json, sorted.get(i).getValue());
+            json.append("}");
+        }
+        json.append("\n  ]\n}\n");
+        
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private void appendJsonStats(StringBuilder json, LatencyHistogram h) {
+        json.append("{\"count\": ").append(h.getCount())
+            .append(", \"totalMs\": ").append(ms(h.getSum()))
+            .append(", \"meanMs\": ").append(ms((long) h.getMean()))
+            .append(", \"p50Ms\": ").append(ms(h.getValueAtPercentile(50)))
+            .append(", \"p95Ms\": ").append(ms(h.getValueAtPercentile(95)))
+            .append(", \"p99Ms\": ").append(ms(h.getValueAtPercentile(99)))
+            .append(", \"maxMs\": ").append(ms(h.getMax()))
+            .append(", \"histogram\": ");
+        h.appendJson(json);
+        json.append("}");
+    }
+    
+    public void writePrometheus(Path file) throws IOException {
+        StringBuilder prom = new StringBuilder();
+        
+        prom.append("# HELP cucumber_scenario_duration_seconds Scenario duration\n");
+        prom.append("# TYPE cucumber_scenario_duration_seconds summary\n");
+        appendPrometheusSummary(prom, "cucumber_scenario_duration_seconds", "", scenarios);
+        
+        prom.append("# HELP cucumber_step_duration_seconds Step duration by step definition pattern\n");
+        prom.append("# TYPE cucumber_step_duration_seconds summary\n");
+        for (Map.Entry<String, LatencyHistogram> e : slowestSteps(Integer.MAX_VALUE)) {
+            appendPrometheusSummary(prom, "cucumber_step_duration_seconds",
+                "step=\"" + escapePrometheusLabel(e.getKey()) + "\"", e.getValue());
+        }
+        
+        Files.write(file, prom.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private void appendPrometheusSummary(StringBuilder prom, String name, String labels, LatencyHistogram h) {
+        String sep = labels.isEmpty() ? "" : ",";
+        prom.append(name).append("{").append(labels).append(sep).append("quantile=\"0.5\"} ").append(seconds(h.getValueAtPercentile(50))).append("\n");
+        prom.append(name).append("{").append(labels).append(sep).append("quantile=\"0.95\"} ").append(seconds(h.getValueAtPercentile(95))).append("\n");
+        prom.append(name).append("{").append(labels).append(sep).append("quantile=\"0.99\"} ").append(seconds(h.getValueAtPercentile(99))).append("\n");
+        prom.append(name).append("{").append(labels).append(sep).append("quantile=\"1\"} ").append(seconds(h.getMax())).append("\n");
+        String plainLabels = labels.isEmpty() ? "" : "{" + labels + "}";
+        prom.append(name).append("_sum").append(plainLabels).append(" ").append(seconds(h.getSum())).append("\n");
+        prom.append(name).append("_count").append(plainLabels).append(" ").append(h.getCount()).append("\n");
+    }
+    
+    /**
+     * "Step Latency Summary" test with the slowest steps, pointing at the
+     * files holding the full data
+     */
+    public void addReportTest(ExtentReports extent, Path json, Path prom) {
+        extent.createTest("Step Latency Summary")
+            .assignCategory("Metrics")
+            .info("Slowest steps by total time (full data: " + json.getFileName() + ", " + prom.getFileName() + ")")
+            .info(slowestStepsTable(20));
+    }
+    
+    /**
+     * HTML table of the slowest steps for the Extent report
+     */
+    public String slowestStepsTable(int limit) {
+        HtmlTable table = new HtmlTable("Step", "Count", "Total (ms)", "p50 (ms)", "p95 (ms)", "p99 (ms)", "Max (ms)");
+        for (Map.Entry<String, LatencyHistogram> e : slowestSteps(limit)) {
+            LatencyHistogram h = e.getValue();
+            table.row(e.getKey(), h.getCount(), ms(h.getSum()), ms(h.getValueAtPercentile(50)),
+                ms(h.getValueAtPercentile(95)), ms(h.getValueAtPercentile(99)), ms(h.getMax()));
+        }
+        return table.toString();
+    }
+    
+    private static String seconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+    }
+    
+    private static String escapePrometheusLabel(String str) {
+        return str.replace("\\", "\\\\")
+                 .replace("\"", "\\\"")
+                 .replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.reporting;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.example.reporting.ReportFormat.HtmlTable;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.example.reporting.ReportFormat.escapeJson;
+import static com.example.reporting.ReportFormat.ms;
+
+/**
+ * Per-locator lookup latency for BasePage.elementDisplayed.
+ * record() only touches concurrent counters and a LatencyHistogram, so it is
+ * cheap enough for the hot path; at run end publish() hands the data to the
+ * registered sinks (JSON file, report section, or anything custom).
+ * Latencies are recorded in microseconds.
+ */
+public final class LocatorMetrics {
+    
+    private static final Map<String, LocatorStats> stats = new ConcurrentHashMap<>();
+    private static final List<Sink> sinks = new CopyOnWriteArrayList<>();
+    
+    private LocatorMetrics() {
+    }
+    
+    /**
+     * Receives the collected metrics at run end
+     */
+    public interface Sink {
+        void publish(List<LocatorStats> slowestFirst) throws IOException;
+    }
+    
+    public static void record(String locatorName, long durationNanos, boolean displayed) {
+        LocatorStats s = stats.computeIfAbsent(locatorName, LocatorStats::new);
+        s.latency.record(durationNanos / 1_000);
+        if (!displayed) {
+            s.notDisplayed.increment();
+        }
+    }
+    
+    /**
+     * Element cache outcome for one lookup (only called when the page has
+     * its element cache enabled)
+     */
+    public static void recordCacheLookup(String locatorName, boolean hit, boolean stale) {
+        LocatorStats s = stats.computeIfAbsent(locatorName, LocatorStats::new);
+        (hit ? s.cacheHits : s.cacheMisses).increment();
+        if (stale) {
+            s.staleRefreshes.increment();
+        }
+    }
+    
+    /**
+     * Element cache hit rate over all locators, 0-100
+     */
+    public static double cacheHitRate() {
+        return cacheHitRate(stats.values());
+    }
+    
+    /**
+     * Whether any of the locators went through an element cache
+     */
+    public static boolean hasCacheLookups(Collection<LocatorStats> locators) {
+        for (LocatorStats s : locators) {
+            if (s.getCacheHits() + s.getCacheMisses() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Element cache hit rate over the given locators, 0-100
+     */
+    public static double cacheHitRate(Collection<LocatorStats> locators) {
+        long hits = 0;
+        long lookups = 0;
+        for (LocatorStats s : locators) {
+            hits += s.getCacheHits();
+            lookups += s.getCacheHits() + s.getCacheMisses();
+        }
+        return lookups == 0 ? 0.0 : hits * 100.0 / lookups;
+    }
+    
+    public static void addSink(Sink sink) {
+        sinks.add(sink);
+    }
+    
+    public static boolean isEmpty() {
+        return stats.isEmpty();
+    }
+    
+    /**
+     * Locators ordered by total lookup time - the ones costing the most suite time first
+     */
+    public static List<LocatorStats> slowestLocators(int limit) {
+        List<LocatorStats> sorted = slowestFirst(stats.values());
+        return sorted.size() > limit ? sorted.subList(0, limit) : sorted;
+    }
+    
+    /**
+     * The given locators ordered by total lookup time, as the sinks expect them
+     */
+    public static List<LocatorStats> slowestFirst(Collection<LocatorStats> locators) {
+        List<LocatorStats> sorted = new ArrayList<>(locators);
+        sorted.sort(Comparator.comparingLong((LocatorStats s) -> s.latency.getSum()).reversed());
+        return sorted;
+    }
+    
+    /**
+     * Publish to every registered sink; one failing sink does not stop the others
+     */
+    public static void publish() {
+        if (stats.isEmpty()) {
+            return;
+        }
+        List<LocatorStats> sorted = slowestLocators(Integer.MAX_VALUE);
+        for (Sink sink : sinks) {
+            try {
+                sink.publish(sorted);
+            } catch (Exception e) {
+                System.err.println("Locator metrics sink failed: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Counters and latency histogram for one @LocatorName
+     */
+    public static final class LocatorStats {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder notDisplayed = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder cacheMisses = new LongAdder();
+        private final LongAdder staleRefreshes = new LongAdder();
+        
+        LocatorStats(String name) {
+            this.name = name;
+        }
+        
+        /**
+         * Stats for one locator entry of the JSON written by JsonFileSink
+         */
+        public static LocatorStats fromJson(JsonObject json) {
+            LocatorStats s = new LocatorStats(json.get("locator").getAsString());
+            s.latency.merge(LatencyHistogram.fromJson(json.getAsJsonObject("histogram")));
+            s.notDisplayed.add(json.get("notDisplayed").getAsLong());
+            s.cacheHits.add(json.get("cacheHits").getAsLong());
+            s.cacheMisses.add(json.get("cacheMisses").getAsLong());
+            s.staleRefreshes.add(json.get("staleRefreshes").getAsLong());
+            return s;
+        }
+        
+        /**
+         * Add another fork's counters and latency for the same locator
+         */
+        public void merge(LocatorStats other) {
+            latency.merge(other.latency);
+            notDisplayed.add(other.getNotDisplayed());
+            cacheHits.add(other.getCacheHits());
+            cacheMisses.add(other.getCacheMisses());
+            staleRefreshes.add(other.getStaleRefreshes());
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+        
+        public long getLookups() {
+            return latency.getCount();
+        }
+        
+        // Lookups that threw or found the element hidden
+        public long getNotDisplayed() {
+            return notDisplayed.sum();
+        }
+        
+        public long getCacheHits() {
+            return cacheHits.sum();
+        }
+        
+        public long getCacheMisses() {
+            return cacheMisses.sum();
+        }
+        
+        // Cached elements that failed (stale or another driver error) and had to be found again
+        public long getStaleRefreshes() {
+            return staleRefreshes.sum();
+        }
+    }
+    
+    /**
+     * Writes every locator's stats as JSON
+     */
+    public static class JsonFileSink implements Sink {
+        private final Path file;
+        
+        public JsonFileSink(Path file) {
+            this.file = file;
+        }
+        
+        @Override
+        public void publish(List<LocatorStats> slowestFirst) throws IOException {
+            StringBuilder json = new StringBuilder("{\n  \"unit\": \"ms\",\n  \"histogramUnit\": \"us\",\n");
+            if (hasCacheLookups(slowestFirst)) {
+                json.append("  \"cacheHitRate\": ").append(String.format(Locale.ROOT, "%.1f", cacheHitRate(slowestFirst))).append(",\n");
+            }
+            json.append("  \"locators\": [");
+            for (int i = 0; i < slowestFirst.size(); i++) {
+                LocatorStats s = slowestFirst.get(i);
+                LatencyHistogram h = s.latency;
+                json.append(i == 0 ? "\n" : ",\n");
+                json.append("    {\"locator\": \"").append(escapeJson(s.name)).append("\"")
+                    .append(", \"lookups\": ").append(h.getCount())
+                    .append(", \"notDisplayed\": ").append(s.getNotDisplayed())
+                    .append(", \"cacheHits\": ").append(s.getCacheHits())
+                    .append(", \"cacheMisses\": ").append(s.getCacheMisses())
+                    .append(", \"staleRefreshes\": ").append(s.getStaleRefreshes())
+                    .append(", \"totalMs\": ").append(ms(h.getSum()))
+                    .append(", \"p50Ms\": ").append(ms(h.getValueAtPercentile(50)))
+                    .append(", \"p95Ms\": ").append(ms(h.getValueAtPercentile(95)))
+                    .append(", \"p99Ms\": ").append(ms(h.getValueAtPercentile(99)))
+                    .append(", \"maxMs\": ").append(ms(h.getMax()))
+                    .append(", \"histogram\": ");
+                h.appendJson(json);
+                json.append("}");
+            }
+            json.append("\n  ]\n}\n");
+            Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    /**
+     * Adds a "Slowest Locators" section to the Extent report
+     */
+    public static class ReportSink implements Sink {
+        private final ExtentReports extent;
+        private final int limit;
+        
+        public ReportSink(ExtentReports extent, int limit) {
+            this.extent = extent;
+            this.limit = limit;
+        }
+        
+        @Override
+        public void publish(List<LocatorStats> slowestFirst) {
+            HtmlTable table = new HtmlTable("Locator", "Lookups", "Not displayed", "Cache hits", "Total (ms)",
+                                             "p50 (ms)", "p95 (ms)", "p99 (ms)", "Max (ms)");
+            for (LocatorStats s : slowestFirst.subList(0, Math.min(limit, slowestFirst.size()))) {
+                LatencyHistogram h = s.latency;
+                table.row(s.name, h.getCount(), s.getNotDisplayed(), s.getCacheHits(), ms(h.getSum()),
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(95)),
+                    ms(h.getValueAtPercentile(99)), ms(h.getMax()));
+            }
+            
+            ExtentTest test = extent.createTest("Slowest Locators")
+                .assignCategory("Metrics");
+            // Only pages with the element cache enabled record cache lookups
+            if (hasCacheLookups(slowestFirst)) {
+                test.info(String.format(Locale.ROOT, "Element cache hit rate: %.1f%%", cacheHitRate(slowestFirst)));
+            }
+            test.info(table.toString());
+        }
+    }
+}
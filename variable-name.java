@@ -1,7 +1,33 @@
+import com.example.reporting.LocatorMetrics;
+import io.appium.java_client.android.StartsActivity;
+import io.appium.java_client.remote.SupportsContextSwitching;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.lang.annotation.ElementType;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
 
 
 public abstract class BasePage {
@@ -19,42 +45,348 @@ public abstract class BasePage {
 
 public abstract class BasePage {
     protected WebDriver driver;
-    private final Map<By, String> locatorNames = new HashMap<>();
+    private Map<By, String> locatorNames;
+
+    // Console line per lookup is off by default - timings go to LocatorMetrics
+    private static final boolean LOG_LOOKUPS = Boolean.getBoolean("locator.log");
+
+    // Opt-in element cache (-Dpage.elementCache=true or setElementCacheEnabled).
+    // Page objects are used from one thread, so a plain HashMap is enough.
+    private static final boolean ELEMENT_CACHE_DEFAULT = Boolean.getBoolean("page.elementCache");
+    // The cache is dropped when the window, activity or context changes. Checking
+    // costs a round trip, so it runs at most once per interval (0 = every lookup);
+    // elements that went stale in between are still evicted when they fail.
+    private static final long CACHE_CONTEXT_CHECK_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(Long.getLong("page.elementCache.contextCheckMs", 500));
+    private Map<By, WebElement> elementCache = ELEMENT_CACHE_DEFAULT ? new HashMap<>() : null;
+    private String cacheContextKey;
+    private long cacheContextCheckedAt;
+
+    // Drivers that rejected executeScript outside NATIVE_APP - not tried again
+    private static final Set<WebDriver> BATCH_SCRIPT_UNSUPPORTED =
+        Collections.newSetFromMap(Collections.synchronizedMap(new WeakHashMap<>()));
+
+    // Resolves every [using, value] query and reports visibility in one round trip.
+    // Visibility follows layout + computed style, close to WebDriver's isDisplayed.
+    // Each row is [element, shown, ms spent on that query in the page].
+    private static final String BATCH_LOOKUP_SCRIPT =
+        "var out = [];" +
+        "for (var i = 0; i < arguments[0].length; i++) {" +
+        "  var t = performance.now();" +
+        "  var q = arguments[0][i], el = null;" +
+        "  if (q[0] === 'css selector') el = document.querySelector(q[1]);" +
+        "  else if (q[0] === 'xpath') el = document.evaluate(q[1], document, null," +
+        "      XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;" +
+        "  else if (q[0] === 'tag name') el = document.getElementsByTagName(q[1])[0] || null;" +
+        "  var shown = !!el && !!(el.offsetWidth || el.offsetHeight || el.getClientRects().length) &&" +
+        "      window.getComputedStyle(el).visibility !== 'hidden';" +
+        "  out.push([el, shown, performance.now() - t]);" +
+        "}" +
+        "return out;";
+
+    // @LocatorName fields are scanned once per page class; instances only
+    // run the precomputed getters
+    private static final ClassValue<LocatorField[]> LOCATOR_FIELDS = new ClassValue<LocatorField[]>() {
+        @Override
+        protected LocatorField[] computeValue(Class<?> pageClass) {
+            return scanLocatorFields(pageClass);
+        }
+    };
 
     public BasePage(WebDriver driver) {
         this.driver = driver;
-        cacheLocatorNames();
     }
 
-    private void cacheLocatorNames() {
-        for (Field field : this.getClass().getDeclaredFields()) {
-            if (field.isAnnotationPresent(LocatorName.class)) {
-                field.setAccessible(true);
+    /**
+     * Reuse resolved WebElements for repeated lookups on this page. A cached
+     * element that fails (stale or any other driver error) is re-resolved
+     * automatically, and the whole cache is dropped when the driver moves to
+     * another window, activity or context. invalidateElementCache() clears it
+     * right away, e.g. after an action that redraws the current screen.
+     */
+    protected void setElementCacheEnabled(boolean enabled) {
+        elementCache = enabled ? (elementCache != null ? elementCache : new HashMap<>()) : null;
+    }
+
+    protected void invalidateElementCache() {
+        if (elementCache != null) {
+            elementCache.clear();
+        }
+    }
+
+    private void cacheElement(By locator, WebElement element) {
+        if (elementCache.isEmpty()) {
+            cacheContextKey = currentContextKey();
+            cacheContextCheckedAt = System.nanoTime();
+        }
+        elementCache.put(locator, element);
+    }
+
+    // Clears the cache if the driver is no longer where the cached elements were found
+    private void checkCacheContext() {
+        if (elementCache == null || elementCache.isEmpty()
+                || System.nanoTime() - cacheContextCheckedAt < CACHE_CONTEXT_CHECK_NANOS) {
+            return;
+        }
+        String key = currentContextKey();
+        cacheContextCheckedAt = System.nanoTime();
+        if (key == null || !key.equals(cacheContextKey)) {
+            elementCache.clear();
+        }
+    }
+
+    // Context plus current activity on native Android, context plus window handle
+    // otherwise; null if the driver can't tell, which counts as a change
+    private String currentContextKey() {
+        try {
+            if (driver instanceof SupportsContextSwitching) {
+                String context = ((SupportsContextSwitching) driver).getContext();
+                if (context != null && context.startsWith("NATIVE_APP") && driver instanceof StartsActivity) {
+                    return context + "|" + ((StartsActivity) driver).currentActivity();
+                }
+                return context + "|" + driver.getWindowHandle();
+            }
+            return driver.getWindowHandle();
+        } catch (WebDriverException e) {
+            return null;
+        }
+    }
+
+    private static LocatorField[] scanLocatorFields(Class<?> pageClass) {
+        List<LocatorField> fields = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Class<?> c = pageClass; c != null && c != BasePage.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                LocatorName locatorName = field.getAnnotation(LocatorName.class);
+                if (locatorName == null || !By.class.isAssignableFrom(field.getType())) {
+                    continue;
+                }
                 try {
-                    Object value = field.get(this);
-                    if (value instanceof By) {
-                        locatorNames.put((By) value, field.getAnnotation(LocatorName.class).value());
+                    // A getter MethodHandle rather than a VarHandle: unreflectGetter honours
+                    // setAccessible, unreflectVarHandle always checks access from BasePage
+                    // and would need a privateLookupIn for every page class
+                    field.setAccessible(true);
+                    MethodHandle getter = lookup.unreflectGetter(field);
+                    // Uniform (Object)Object shape so static and instance fields are read the same way
+                    getter = Modifier.isStatic(field.getModifiers())
+                        ? MethodHandles.dropArguments(getter.asType(MethodType.methodType(Object.class)), 0, Object.class)
+                        : getter.asType(MethodType.methodType(Object.class, Object.class));
+                    fields.add(new LocatorField(getter, locatorName.value()));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return fields.toArray(new LocatorField[0]);
+    }
+
+    // Resolved on first lookup - subclass fields are not initialised yet
+    // while the BasePage constructor runs
+    private Map<By, String> locatorNames() {
+        if (locatorNames == null) {
+            LocatorField[] fields = LOCATOR_FIELDS.get(getClass());
+            Map<By, String> names = new HashMap<>(fields.length * 2);
+            for (LocatorField field : fields) {
+                try {
+                    Object value = (Object) field.getter.invokeExact((Object) this);
+                    if (value != null) {
+                        names.put((By) value, field.name);
                     }
-                } catch (IllegalAccessException e) {
+                } catch (Throwable e) {
                     e.printStackTrace();
                 }
             }
+            locatorNames = names;
+        }
+        return locatorNames;
+    }
+
+    private static final class LocatorField {
+        final MethodHandle getter;
+        final String name;
+
+        LocatorField(MethodHandle getter, String name) {
+            this.getter = getter;
+            this.name = name;
         }
     }
 
     protected WebElement elementDisplayed(By locator) {
+        return lookup(locator, null);
+    }
+
+    // displayedOut (optional) receives the isDisplayed result
+    private WebElement lookup(By locator, boolean[] displayedOut) {
         long start = System.nanoTime();
+        boolean displayed = false;
+        boolean cacheHit = false;
+        boolean stale = false;
 
-        WebElement element = driver.findElement(locator);
-        boolean displayed = element.isDisplayed();
+        try {
+            checkCacheContext();
+            WebElement element = elementCache != null ? elementCache.get(locator) : null;
+            if (element != null) {
+                // isDisplayed is needed anyway, so staleness costs no extra round trip.
+                // Any driver error means the element can't be trusted - find it again.
+                try {
+                    displayed = element.isDisplayed();
+                    cacheHit = true;
+                    return element;
+                } catch (WebDriverException e) {
+                    elementCache.remove(locator);
+                    stale = true;
+                }
+            }
+
+            element = driver.findElement(locator);
+            displayed = element.isDisplayed();
+            if (elementCache != null) {
+                cacheElement(locator, element);
+            }
+            return element;
+        } finally {
+            // Recorded in finally so lookups that throw are timed too
+            String metricName = recordLookup(locator, System.nanoTime() - start, displayed);
+            if (elementCache != null) {
+                LocatorMetrics.recordCacheLookup(metricName, cacheHit, stale);
+            }
+            if (displayedOut != null) {
+                displayedOut[0] = displayed;
+            }
+        }
+    }
+
+    private String recordLookup(By locator, long durationNanos, boolean displayed) {
+        String name = locatorNames().get(locator);
+        String metricName = name != null ? name : locator.toString();
+        LocatorMetrics.record(metricName, durationNanos, displayed);
+
+        if (LOG_LOOKUPS) {
+            System.out.println("Element: " + (name != null ? name : "(unnamed)") + " | Displayed: " + displayed + 
+                               " | Time: " + durationNanos / 1_000_000 + " ms");
+        }
+        return metricName;
+    }
+
+    /**
+     * Visibility of several elements at once. On web contexts all locators
+     * are resolved and checked by one executeScript call; native contexts
+     * (or locators the script cannot evaluate, e.g. link text) fall back to
+     * one lookup per locator. Missing elements map to false instead of throwing.
+     * Each locator is still reported under its @LocatorName with the time its
+     * query took in the page (the one shared round trip is not included).
+     */
+    protected Map<By, Boolean> elementsDisplayed(By... locators) {
+        Map<By, Boolean> results = new LinkedHashMap<>();
+        checkCacheContext();
+        List<List<String>> queries = toScriptQueries(locators);
+        if (queries != null && !batchScriptAvailable()) {
+            queries = null;
+        }
+
+        if (queries != null) {
+            WebElement[] elements = new WebElement[locators.length];
+            boolean[] displayed = new boolean[locators.length];
+            long[] durationNanos = new long[locators.length];
+            try {
+                Object rows = ((JavascriptExecutor) driver).executeScript(BATCH_LOOKUP_SCRIPT, queries);
+                // Every row is read before anything is recorded, so a bad result
+                // falls back to single lookups without counting any locator twice
+                if (readBatchRows(rows, elements, displayed, durationNanos)) {
+                    for (int i = 0; i < locators.length; i++) {
+                        if (elementCache != null && elements[i] != null) {
+                            cacheElement(locators[i], elements[i]);
+                        }
+                        recordLookup(locators[i], durationNanos[i], displayed[i]);
+                        results.put(locators[i], displayed[i]);
+                    }
+                    return results;
+                }
+                // Driver answered with something other than the rows
+                BATCH_SCRIPT_UNSUPPORTED.add(driver);
+            } catch (WebDriverException e) {
+                // Anything but an unsupported command (script error, timeout) only affects this call
+                if (isUnsupportedCommand(e)) {
+                    BATCH_SCRIPT_UNSUPPORTED.add(driver);
+                }
+            }
+        }
 
-        long end = System.nanoTime();
-        long durationMs = (end - start) / 1_000_000;
+        boolean[] displayed = new boolean[1];
+        for (By locator : locators) {
+            displayed[0] = false;
+            try {
+                lookup(locator, displayed);
+            } catch (NoSuchElementException e) {
+                // Reported as not displayed
+            }
+            results.put(locator, displayed[0]);
+        }
+        return results;
+    }
 
-        String name = locatorNames.getOrDefault(locator, "(unnamed)");
-        System.out.println("Element: " + name + " | Displayed: " + displayed + " | Time: " + durationMs + " ms");
+    // Fills the arrays from the script's [element, shown, ms] rows; false if the result has another shape
+    private static boolean readBatchRows(Object rows, WebElement[] elements, boolean[] displayed, long[] durationNanos) {
+        if (!(rows instanceof List) || ((List<?>) rows).size() != elements.length) {
+            return false;
+        }
+        for (int i = 0; i < elements.length; i++) {
+            Object row = ((List<?>) rows).get(i);
+            if (!(row instanceof List) || ((List<?>) row).size() < 3 || !(((List<?>) row).get(2) instanceof Number)) {
+                return false;
+            }
+            List<?> values = (List<?>) row;
+            elements[i] = values.get(0) instanceof WebElement ? (WebElement) values.get(0) : null;
+            displayed[i] = Boolean.TRUE.equals(values.get(1));
+            durationNanos[i] = (long) (((Number) values.get(2)).doubleValue() * 1_000_000);
+        }
+        return true;
+    }
 
-        return element;
+    // No DOM in NATIVE_APP, so the script isn't even tried there; checked per
+    // call because hybrid apps switch between native and web view contexts
+    private boolean batchScriptAvailable() {
+        if (BATCH_SCRIPT_UNSUPPORTED.contains(driver)) {
+            return false;
+        }
+        if (driver instanceof SupportsContextSwitching) {
+            try {
+                String context = ((SupportsContextSwitching) driver).getContext();
+                return context != null && !context.startsWith("NATIVE_APP");
+            } catch (WebDriverException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUnsupportedCommand(WebDriverException e) {
+        if (e instanceof UnsupportedCommandException) {
+            return true;
+        }
+        String message = e.getMessage() == null ? "" : e.getMessage().toLowerCase(Locale.ROOT);
+        return message.contains("unknown command") || message.contains("unsupported command")
+            || message.contains("not implemented") || message.contains("not yet been implemented");
+    }
+
+    // [using, value] pairs for the batch script, or null if any locator can't be evaluated in the page
+    private List<List<String>> toScriptQueries(By[] locators) {
+        if (!(driver instanceof JavascriptExecutor) || locators.length == 0) {
+            return null;
+        }
+        List<List<String>> queries = new ArrayList<>(locators.length);
+        for (By locator : locators) {
+            if (!(locator instanceof By.Remotable)) {
+                return null;
+            }
+            By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+            String using = parameters.using();
+            if (!"css selector".equals(using) && !"xpath".equals(using) && !"tag name".equals(using)) {
+                return null;
+            }
+            queries.add(Arrays.asList(using, String.valueOf(parameters.value())));
+        }
+        return queries;
     }
 }
 